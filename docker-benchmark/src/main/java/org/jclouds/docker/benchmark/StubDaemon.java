@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.benchmark;
+
+import static com.google.common.base.Charsets.US_ASCII;
+import static com.google.common.base.Charsets.UTF_8;
+import static org.jclouds.util.Closeables2.closeQuietly;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.newsclub.net.unix.AFUNIXServerSocket;
+import org.newsclub.net.unix.AFUNIXSocketAddress;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A stand-in for the Docker daemon answering every request with the same version document, on keep-alive
+ * connections, so the benchmarks only measure the transport and jclouds.
+ */
+final class StubDaemon implements Closeable {
+
+   static final String VERSION = "{\"ApiVersion\":\"1.21\",\"Arch\":\"amd64\",\"GitCommit\":\"a34a1d5\","
+         + "\"GoVersion\":\"go1.4.2\",\"KernelVersion\":\"4.1.12\",\"Os\":\"linux\",\"Version\":\"1.9.1\"}";
+
+   private final ServerSocket server;
+   private final File socketFile;
+   private final ExecutorService connections = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+         .setNameFormat("stub-daemon-%d").setDaemon(true).build());
+
+   private StubDaemon(ServerSocket server, File socketFile) {
+      this.server = server;
+      this.socketFile = socketFile;
+      connections.execute(new Runnable() {
+         @Override
+         public void run() {
+            accept();
+         }
+      });
+   }
+
+   /**
+    * Starts a daemon listening on an ephemeral port of the loopback interface.
+    */
+   static StubDaemon onTcpPort() throws IOException {
+      ServerSocket server = new ServerSocket();
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      return new StubDaemon(server, null);
+   }
+
+   /**
+    * Starts a daemon listening on a new socket file in the temporary directory.
+    */
+   static StubDaemon onSocketFile() throws IOException {
+      File socketFile = File.createTempFile("docker-benchmark", ".sock");
+      socketFile.delete();
+      AFUNIXServerSocket server = AFUNIXServerSocket.newInstance();
+      server.bind(new AFUNIXSocketAddress(socketFile));
+      return new StubDaemon(server, socketFile);
+   }
+
+   /**
+    * @return the endpoint jclouds should be given to reach this daemon
+    */
+   String endpoint() {
+      if (socketFile != null) {
+         return "unix://" + socketFile.getAbsolutePath();
+      }
+      return "http://127.0.0.1:" + server.getLocalPort();
+   }
+
+   @Override
+   public void close() {
+      closeQuietly(server);
+      connections.shutdownNow();
+      if (socketFile != null) {
+         socketFile.delete();
+      }
+   }
+
+   private void accept() {
+      try {
+         while (!server.isClosed()) {
+            final Socket socket = server.accept();
+            connections.execute(new Runnable() {
+               @Override
+               public void run() {
+                  serve(socket);
+               }
+            });
+         }
+      } catch (IOException e) {
+         // closed
+      }
+   }
+
+   private static void serve(Socket socket) {
+      byte[] body = VERSION.getBytes(UTF_8);
+      byte[] headers = ("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + body.length
+            + "\r\n\r\n").getBytes(US_ASCII);
+      try {
+         BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), US_ASCII));
+         OutputStream out = socket.getOutputStream();
+         // Only GET requests are sent, so a request ends with its headers
+         for (String line = in.readLine(); line != null; line = in.readLine()) {
+            if (line.isEmpty()) {
+               out.write(headers);
+               out.write(body);
+               out.flush();
+            }
+         }
+      } catch (IOException e) {
+         // closed by the client
+      } finally {
+         closeQuietly(socket);
+      }
+   }
+
+}
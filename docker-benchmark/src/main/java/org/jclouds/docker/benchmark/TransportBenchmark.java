@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.domain.Version;
+import org.jclouds.logging.config.NullLoggingModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Module;
+
+/**
+ * Compares the per-request latency of the docker api over a loopback TCP port and over a Unix domain socket, against
+ * a {@link StubDaemon} so the figures do not depend on the work of a real daemon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransportBenchmark {
+
+   @Param({ "tcp", "unix" })
+   private String transport;
+
+   private StubDaemon daemon;
+   private DockerApi api;
+
+   @Setup
+   public void setUp() throws IOException {
+      daemon = "unix".equals(transport) ? StubDaemon.onSocketFile() : StubDaemon.onTcpPort();
+      api = ContextBuilder.newBuilder("docker")
+            .endpoint(daemon.endpoint())
+            // Neither are certificate files, so no TLS is set up
+            .credentials("anonymous", "anonymous")
+            .modules(ImmutableSet.<Module> of(new NullLoggingModule()))
+            .buildApi(DockerApi.class);
+   }
+
+   @TearDown
+   public void tearDown() throws IOException {
+      api.close();
+      daemon.close();
+   }
+
+   @Benchmark
+   public Version getVersion() {
+      return api.getMiscApi().getVersion();
+   }
+
+}
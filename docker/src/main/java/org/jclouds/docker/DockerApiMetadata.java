@@ -39,6 +39,29 @@ public class DockerApiMetadata extends BaseHttpApiMetadata<DockerApi> {
 
     public static final String DOCKER_CA_CERT_PATH = "docker.cacert.path";
 
+    /**
+     * Maximum number of containers inspected concurrently when nodes are listed.
+     */
+    public static final String DOCKER_INSPECT_PARALLELISM = "docker.inspect.parallelism";
+
+    /**
+     * Whether nodes are listed and polled from a cache of the containers kept up to date by the event stream of
+     * the daemon, instead of inspecting the containers on every call.
+     */
+    public static final String DOCKER_EVENTS_CACHE = "docker.events.cache";
+
+    /**
+     * Read timeout of the event stream followed by the container cache, in milliseconds. The daemon only writes to
+     * the stream when something happens, so the default, 0, never times out.
+     */
+    public static final String DOCKER_EVENTS_READ_TIMEOUT = "docker.events.read.timeout";
+
+    /**
+     * Number of seconds the image catalog is used before it is refreshed. Only the images which are new since the
+     * last refresh are inspected.
+     */
+    public static final String DOCKER_IMAGE_CACHE_TTL = "docker.image.cache.ttl";
+
    @Override
    public Builder toBuilder() {
       return new Builder().fromApiMetadata(this);
@@ -58,6 +81,10 @@ public class DockerApiMetadata extends BaseHttpApiMetadata<DockerApi> {
       properties.setProperty(ComputeServiceProperties.IMAGE_LOGIN_USER, "root:password");
       properties.setProperty(TEMPLATE, "osFamily=UBUNTU,os64Bit=true");
       properties.setProperty(DOCKER_CA_CERT_PATH, "");
+      properties.setProperty(DOCKER_INSPECT_PARALLELISM, "10");
+      properties.setProperty(DOCKER_EVENTS_CACHE, "false");
+      properties.setProperty(DOCKER_EVENTS_READ_TIMEOUT, "0");
+      properties.setProperty(DOCKER_IMAGE_CACHE_TTL, "60");
       return properties;
    }
 
@@ -32,6 +32,7 @@ import org.jclouds.compute.domain.Processor;
 import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.docker.domain.Container;
 import org.jclouds.docker.domain.State;
+import org.jclouds.docker.util.UnixSocketEndpoints;
 import org.jclouds.domain.Location;
 import org.jclouds.providers.ProviderMetadata;
 
@@ -111,7 +112,9 @@ public class ContainerToNodeMetadata implements Function<Container, NodeMetadata
    }
 
    private List<String> getPublicIpAddresses() {
-      String dockerIpAddress = URI.create(providerMetadata.getEndpoint()).getHost();
+      URI endpoint = URI.create(providerMetadata.getEndpoint());
+      // The daemon listening on a socket file is on this host
+      String dockerIpAddress = UnixSocketEndpoints.isUnixSocket(endpoint) ? "127.0.0.1" : endpoint.getHost();
       return ImmutableList.of(dockerIpAddress);
    }
 
@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.util.Closeables2.closeQuietly;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.DockerApiMetadata;
+import org.jclouds.docker.domain.Container;
+import org.jclouds.docker.domain.Event;
+import org.jclouds.docker.util.EventReader;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.json.Json;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * Containers of the host kept up to date from the event stream of the daemon, so that nodes can be listed and
+ * polled without inspecting them over and over. A background thread opens the event stream, inspects all the
+ * containers, then inspects again each container an event is received for. When the stream breaks, the cache
+ * stops answering until the stream is open again: it is reopened from the time of the last event received, so the
+ * daemon sends the missed events again, and all the containers are only inspected again if no event was received
+ * yet or the daemon could not be reached.
+ * <p>
+ * Inspections run without holding any lock. Each one is numbered when it starts, and its result is only stored if
+ * no inspection started after it was stored for the same container, so a slow inspection can never overwrite the
+ * result of a more recent one.
+ * <p>
+ * The cache is only used when {@link DockerApiMetadata#DOCKER_EVENTS_CACHE} is enabled, and its thread is only
+ * started the first time it is asked whether it is synchronized.
+ */
+@Singleton
+public class ContainerStateCache {
+
+   private static final long RECONNECT_DELAY_MILLIS = 1000;
+   private static final long POLL_PERIOD_MILLIS = 1000;
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final DockerApi api;
+   private final ParallelInspector inspector;
+   private final ImageCatalog images;
+   private final EventStream eventStream;
+   private final Json json;
+   private final boolean enabled;
+   private final ConcurrentMap<String, Container> containers = Maps.newConcurrentMap();
+   private final Object changes = new Object();
+   private final Object inspections = new Object();
+
+   // Guarded by changes: the number of changes signaled so far
+   private long changeCount;
+   // Guarded by inspections: the number of the last inspection started, the number of inspections still running,
+   // and the number of the last inspection stored for each container since none were running
+   private long inspectionCount;
+   private int runningInspections;
+   private long storedInspectionFloor;
+   private final Map<String, Long> storedInspections = Maps.newHashMap();
+
+   private volatile boolean synchronizedWithDaemon;
+   private volatile boolean closed;
+   private volatile EventReader events;
+   private Thread listener;
+
+   @Inject
+   ContainerStateCache(DockerApi api, ParallelInspector inspector, ImageCatalog images, EventStream eventStream,
+         Json json, @Named(DockerApiMetadata.DOCKER_EVENTS_CACHE) boolean enabled) {
+      this.api = checkNotNull(api, "api");
+      this.inspector = checkNotNull(inspector, "inspector");
+      this.images = checkNotNull(images, "images");
+      this.eventStream = checkNotNull(eventStream, "eventStream");
+      this.json = checkNotNull(json, "json");
+      this.enabled = enabled;
+   }
+
+   /**
+    * Whether the cache currently mirrors the containers of the host. Starts listening to the daemon on the first
+    * call if the cache is enabled.
+    */
+   public boolean isSynchronized() {
+      if (!enabled) {
+         return false;
+      }
+      start();
+      return synchronizedWithDaemon;
+   }
+
+   public Collection<Container> getContainers() {
+      return ImmutableSet.copyOf(containers.values());
+   }
+
+   /**
+    * @param id the full id of the container
+    * @return the container, or <code>null</code> if it is not known to the cache
+    */
+   @Nullable
+   public Container getContainer(String id) {
+      return containers.get(id);
+   }
+
+   /**
+    * Inspects a container right away rather than waiting for its events, after the caller changed its state.
+    */
+   public void refresh(String id) {
+      update(id);
+   }
+
+   /**
+    * Waits until a container matches a predicate. When the cache is synchronized, the predicate is evaluated again
+    * each time an event changes the cache, instead of inspecting the container periodically.
+    *
+    * @param id the full id of the container
+    * @param predicate the expected state of the container, given <code>null</code> when the container does not exist
+    * @return whether the container matched the predicate before the timeout
+    */
+   public boolean awaitContainer(String id, Predicate<Container> predicate, long timeout, TimeUnit unit)
+         throws InterruptedException {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      while (true) {
+         long seenChanges;
+         synchronized (changes) {
+            seenChanges = changeCount;
+         }
+         // The container is read or inspected without holding the lock, and a change signaled in the meantime
+         // ends the wait right away
+         boolean fromCache = isSynchronized();
+         Container container = fromCache ? containers.get(id) : api.getContainerApi().inspectContainer(id);
+         if (predicate.apply(container)) {
+            return true;
+         }
+         long remaining = deadline - System.nanoTime();
+         if (remaining <= 0) {
+            return false;
+         }
+         synchronized (changes) {
+            if (changeCount == seenChanges) {
+               TimeUnit.NANOSECONDS.timedWait(changes,
+                     fromCache ? remaining : Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_PERIOD_MILLIS)));
+            }
+         }
+      }
+   }
+
+   private synchronized void start() {
+      if (listener == null && !closed) {
+         listener = new Thread(new Runnable() {
+            @Override
+            public void run() {
+               listen();
+            }
+         }, "docker-events");
+         listener.setDaemon(true);
+         listener.start();
+      }
+   }
+
+   @PreDestroy
+   public synchronized void close() {
+      closed = true;
+      if (listener != null) {
+         listener.interrupt();
+      }
+      // Unblocks the listener waiting for the next event
+      closeQuietly(events);
+   }
+
+   private void listen() {
+      // The time of the last event received, from the clock of the daemon
+      Long lastEventTime = null;
+      while (!closed) {
+         boolean opened = false;
+         try {
+            // The stream is opened before the containers are inspected, so no event can be missed in between
+            events = new EventReader(json, eventStream.open(lastEventTime));
+            opened = true;
+            if (lastEventTime == null) {
+               resynchronize();
+               // Images may have changed while the stream was down
+               images.invalidate();
+            } else {
+               synchronizedWithDaemon = true;
+               logger.debug("<< resumed docker event stream from %d", lastEventTime);
+               signal();
+            }
+            for (Event event = events.readEvent(); event != null && !closed; event = events.readEvent()) {
+               // Image events have no image they come from
+               if (event.id() != null && event.from() != null) {
+                  if ("destroy".equals(event.status())) {
+                     remove(event.id());
+                  } else {
+                     update(event.id());
+                  }
+               } else if (event.id() != null) {
+                  images.invalidate();
+               }
+               lastEventTime = event.time();
+            }
+         } catch (IOException e) {
+            logger.debug("<< docker event stream interrupted: %s", e.getMessage());
+         } catch (RuntimeException e) {
+            logger.warn(e, "<< docker event stream failed");
+         } finally {
+            synchronizedWithDaemon = false;
+            closeQuietly(events);
+            events = null;
+         }
+         if (!opened) {
+            // The daemon may have been restarted and lost its events
+            lastEventTime = null;
+         }
+         try {
+            Thread.sleep(RECONNECT_DELAY_MILLIS);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+         }
+      }
+   }
+
+   private void resynchronize() {
+      Map<String, Container> inspected = Maps.newHashMap();
+      long inspection = startInspection();
+      try {
+         for (Container container : inspector.inspectAllContainers()) {
+            inspected.put(container.id(), container);
+         }
+         synchronized (inspections) {
+            for (String id : containers.keySet()) {
+               if (!inspected.containsKey(id)) {
+                  store(id, null, inspection);
+               }
+            }
+            for (Map.Entry<String, Container> container : inspected.entrySet()) {
+               store(container.getKey(), container.getValue(), inspection);
+            }
+         }
+      } finally {
+         endInspection();
+      }
+      synchronizedWithDaemon = true;
+      logger.debug("<< synchronized %d docker containers", inspected.size());
+      signal();
+   }
+
+   private void update(String id) {
+      long inspection = startInspection();
+      try {
+         Container container = api.getContainerApi().inspectContainer(id);
+         synchronized (inspections) {
+            store(container == null ? id : container.id(), container, inspection);
+         }
+      } finally {
+         endInspection();
+      }
+      signal();
+   }
+
+   private void remove(String id) {
+      long inspection = startInspection();
+      try {
+         synchronized (inspections) {
+            store(id, null, inspection);
+         }
+      } finally {
+         endInspection();
+      }
+      signal();
+   }
+
+   private long startInspection() {
+      synchronized (inspections) {
+         runningInspections++;
+         return ++inspectionCount;
+      }
+   }
+
+   /**
+    * Stores the result of an inspection, unless an inspection started after it was already stored for the same
+    * container. Must be called holding the inspections lock.
+    */
+   private void store(String id, @Nullable Container container, long inspection) {
+      Long stored = storedInspections.get(id);
+      if (inspection <= (stored == null ? storedInspectionFloor : stored)) {
+         return;
+      }
+      storedInspections.put(id, inspection);
+      if (container == null) {
+         containers.remove(id);
+      } else {
+         containers.put(id, container);
+      }
+   }
+
+   private void endInspection() {
+      synchronized (inspections) {
+         // Once no inspection is running, any later one is more recent than all the stored ones
+         if (--runningInspections == 0) {
+            storedInspections.clear();
+            storedInspectionFloor = inspectionCount;
+         }
+      }
+   }
+
+   private void signal() {
+      synchronized (changes) {
+         changeCount++;
+         changes.notifyAll();
+      }
+   }
+
+}
@@ -17,7 +17,6 @@
 package org.jclouds.docker.compute.strategy;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.find;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,17 +36,13 @@ import org.jclouds.docker.DockerApi;
 import org.jclouds.docker.compute.options.DockerTemplateOptions;
 import org.jclouds.docker.domain.Config;
 import org.jclouds.docker.domain.Container;
-import org.jclouds.docker.domain.ContainerSummary;
 import org.jclouds.docker.domain.HostConfig;
 import org.jclouds.docker.domain.Image;
-import org.jclouds.docker.domain.ImageSummary;
-import org.jclouds.docker.options.ListContainerOptions;
 import org.jclouds.docker.options.RemoveContainerOptions;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.logging.Logger;
 
-import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -68,10 +63,17 @@ public class DockerComputeServiceAdapter implements
    protected Logger logger = Logger.NULL;
 
    private final DockerApi api;
+   private final ParallelInspector inspector;
+   private final ContainerStateCache cache;
+   private final ImageCatalog images;
 
    @Inject
-   public DockerComputeServiceAdapter(DockerApi api) {
+   public DockerComputeServiceAdapter(DockerApi api, ParallelInspector inspector, ContainerStateCache cache,
+         ImageCatalog images) {
       this.api = checkNotNull(api, "api");
+      this.inspector = checkNotNull(inspector, "inspector");
+      this.cache = checkNotNull(cache, "cache");
+      this.images = checkNotNull(images, "images");
    }
 
    @Override
@@ -174,54 +176,49 @@ public class DockerComputeServiceAdapter implements
    }
 
    /**
-    * Method based on {@link org.jclouds.docker.features.ImageApi#listImages()}. It retrieves additional
-    * information by inspecting each image.
+    * Method based on {@link org.jclouds.docker.features.ImageApi#listImages()}. The images are inspected to
+    * retrieve additional information, and cached in the {@link ImageCatalog} so only new images are inspected
+    * again.
     *
     * @see org.jclouds.compute.ComputeServiceAdapter#listImages()
     */
    @Override
    public Set<Image> listImages() {
-      Set<Image> images = Sets.newHashSet();
-      for (ImageSummary imageSummary : api.getImageApi().listImages()) {
-         // less efficient than just listImages but returns richer json that needs repoTags coming from listImages
-         Image inspected = api.getImageApi().inspectImage(imageSummary.id());
-         inspected = Image.create(inspected.id(), inspected.author(), inspected.comment(), inspected.config(),
-                    inspected.containerConfig(), inspected.parent(), inspected.created(), inspected.container(),
-                 inspected.dockerVersion(), inspected.architecture(), inspected.os(), inspected.size(),
-                    inspected.virtualSize(), imageSummary.repoTags());
-         images.add(inspected);
-      }
-      return images;
+      return images.getImages();
    }
 
    @Override
-   public Image getImage(final String imageId) {
-      // less efficient than just inspectImage but listImages return repoTags
-      return find(listImages(), new Predicate<Image>() {
-
-         @Override
-         public boolean apply(Image input) {
-            return input.id().equals(imageId);
-         }
-      }, null);
+   public Image getImage(String imageId) {
+      // inspectImage does not return the repoTags, they come from the catalog
+      return images.getImage(imageId);
    }
 
    @Override
    public Iterable<Container> listNodes() {
-      Set<Container> containers = Sets.newHashSet();
-      for (ContainerSummary containerSummary : api.getContainerApi().listContainers(ListContainerOptions.Builder.all(true))) {
-         // less efficient than just listNodes but returns richer json
-         containers.add(api.getContainerApi().inspectContainer(containerSummary.id()));
+      if (cache.isSynchronized()) {
+         return cache.getContainers();
       }
-      return containers;
+      // less efficient than just listNodes but returns richer json
+      return inspector.inspectAllContainers();
    }
 
    @Override
    public Iterable<Container> listNodesByIds(final Iterable<String> ids) {
+      if (!cache.isSynchronized()) {
+         return inspector.inspectContainers(ids);
+      }
       Set<Container> containers = Sets.newHashSet();
+      List<String> unknownIds = Lists.newArrayList();
       for (String id : ids) {
-         containers.add(api.getContainerApi().inspectContainer(id));
+         Container container = cache.getContainer(id);
+         if (container != null) {
+            containers.add(container);
+         } else {
+            // may be a name or a short id
+            unknownIds.add(id);
+         }
       }
+      containers.addAll(inspector.inspectContainers(unknownIds));
       return containers;
    }
 
@@ -232,28 +229,47 @@ public class DockerComputeServiceAdapter implements
 
    @Override
    public Container getNode(String id) {
+      if (cache.isSynchronized()) {
+         Container container = cache.getContainer(id);
+         if (container != null) {
+            return container;
+         }
+      }
       return api.getContainerApi().inspectContainer(id);
    }
 
    @Override
    public void destroyNode(String id) {
       api.getContainerApi().removeContainer(id, RemoveContainerOptions.Builder.force(true));
+      refreshCache(id);
    }
 
    @Override
    public void rebootNode(String id) {
       api.getContainerApi().stopContainer(id);
       api.getContainerApi().startContainer(id);
+      refreshCache(id);
    }
 
    @Override
    public void resumeNode(String id) {
       api.getContainerApi().unpause(id);
+      refreshCache(id);
    }
 
    @Override
    public void suspendNode(String id) {
       api.getContainerApi().pause(id);
+      refreshCache(id);
+   }
+
+   /**
+    * Updates the cache right away, so the callers polling the node see the change without waiting for its event.
+    */
+   private void refreshCache(String id) {
+      if (cache.isSynchronized()) {
+         cache.refresh(id);
+      }
    }
 
 }
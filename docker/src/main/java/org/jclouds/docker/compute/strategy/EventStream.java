@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.core.MediaType;
+
+import org.jclouds.docker.DockerApiMetadata;
+import org.jclouds.docker.util.UnixSocketEndpoints;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.location.Provider;
+import org.jclouds.rest.annotations.ApiVersion;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Supplier;
+import com.google.common.net.HttpHeaders;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+/**
+ * Opens the <code>/events</code> stream of the daemon. The stream stays open and is only written to when something
+ * happens, so it is read with its own {@link DockerApiMetadata#DOCKER_EVENTS_READ_TIMEOUT read timeout} rather than
+ * the socket timeout of the other requests.
+ */
+@Singleton
+public class EventStream {
+
+   private final OkHttpClient client;
+   private final Supplier<URI> endpoint;
+   private final String apiVersion;
+
+   @Inject
+   EventStream(OkHttpClient client, @Provider Supplier<URI> endpoint, @ApiVersion String apiVersion,
+         @Named(DockerApiMetadata.DOCKER_EVENTS_READ_TIMEOUT) long readTimeout) {
+      checkArgument(readTimeout >= 0, "events read timeout must not be negative");
+      this.client = checkNotNull(client, "client").clone();
+      this.client.setReadTimeout(readTimeout, TimeUnit.MILLISECONDS);
+      this.endpoint = checkNotNull(endpoint, "endpoint");
+      this.apiVersion = checkNotNull(apiVersion, "apiVersion");
+   }
+
+   /**
+    * @param since the time of the first event to return, in seconds, or <code>null</code> to only return the events
+    *           from now on
+    * @return a stream of json events, to be read with {@link org.jclouds.docker.util.EventReader}
+    */
+   public InputStream open(@Nullable Long since) throws IOException {
+      URI daemon = endpoint.get();
+      StringBuilder uri = new StringBuilder(CharMatcher.is('/').trimTrailingFrom(daemon.toString()))
+            .append("/v").append(apiVersion).append("/events");
+      if (since != null) {
+         uri.append("?since=").append(since);
+      }
+      Request request = new Request.Builder()
+            .url(UnixSocketEndpoints.toHttpEndpoint(daemon, URI.create(uri.toString())).toURL())
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+            .get()
+            .build();
+      Response response = client.newCall(request).execute();
+      if (!response.isSuccessful()) {
+         response.body().close();
+         throw new IOException(String.format("could not open the docker event stream: %s %s", response.code(),
+               response.message()));
+      }
+      return response.body().byteStream();
+   }
+
+}
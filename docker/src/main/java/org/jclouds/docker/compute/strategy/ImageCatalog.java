@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.DockerApiMetadata;
+import org.jclouds.docker.domain.Image;
+import org.jclouds.docker.domain.ImageSummary;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Images of the host, indexed by id and repo tag. The catalog is refreshed once its time to live has elapsed, or
+ * when image events invalidate it. A refresh lists the images and only inspects, in parallel, the ones which were
+ * not known yet, taking the repo tags of all the images from the listing.
+ */
+@Singleton
+public class ImageCatalog {
+
+   private final DockerApi api;
+   private final ParallelInspector inspector;
+   private final long ttlNanos;
+   // The catalog is stale until a refresh completes after the last invalidation
+   private final AtomicLong invalidations = new AtomicLong(1);
+
+   private volatile Map<String, Image> imagesById = ImmutableMap.of();
+   private volatile Map<String, String> idsByTag = ImmutableMap.of();
+   private volatile long expiresAt;
+   private volatile long refreshedInvalidations;
+
+   @Inject
+   ImageCatalog(DockerApi api, ParallelInspector inspector,
+         @Named(DockerApiMetadata.DOCKER_IMAGE_CACHE_TTL) long ttlSeconds) {
+      checkArgument(ttlSeconds >= 0, "image cache ttl must not be negative");
+      this.api = checkNotNull(api, "api");
+      this.inspector = checkNotNull(inspector, "inspector");
+      this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+   }
+
+   /**
+    * @return all the images of the host, with their repo tags
+    */
+   public Set<Image> getImages() {
+      refreshIfStale();
+      return ImmutableSet.copyOf(imagesById.values());
+   }
+
+   /**
+    * Inspects a single image and completes it with its repo tags from the catalog.
+    *
+    * @param idOrTag the id, or a repo tag, of the image
+    * @return the image, or <code>null</code> if it does not exist
+    */
+   @Nullable
+   public Image getImage(String idOrTag) {
+      Image inspected = api.getImageApi().inspectImage(idOrTag);
+      if (inspected == null) {
+         return null;
+      }
+      refreshIfStale();
+      Image cached = imagesById.get(inspected.id());
+      if (cached == null) {
+         // created since the last refresh
+         invalidate();
+         refreshIfStale();
+         cached = imagesById.get(inspected.id());
+      }
+      return withRepoTags(inspected, cached == null ? ImmutableList.<String> of() : cached.repoTags());
+   }
+
+   /**
+    * Looks an image up in the catalog only, without calling the daemon unless the catalog must be refreshed.
+    *
+    * @param idOrTag the id, or a repo tag, of the image
+    * @return the image, or <code>null</code> if the catalog does not know it
+    */
+   @Nullable
+   public Image findImage(String idOrTag) {
+      refreshIfStale();
+      Image image = imagesById.get(idOrTag);
+      if (image == null && idsByTag.containsKey(idOrTag)) {
+         image = imagesById.get(idsByTag.get(idOrTag));
+      }
+      return image;
+   }
+
+   /**
+    * Makes the next access refresh the catalog, for instance after an image was pulled, tagged or deleted.
+    */
+   public void invalidate() {
+      invalidations.incrementAndGet();
+   }
+
+   private boolean isStale() {
+      return invalidations.get() != refreshedInvalidations || System.nanoTime() - expiresAt >= 0;
+   }
+
+   private void refreshIfStale() {
+      if (isStale()) {
+         refresh();
+      }
+   }
+
+   private synchronized void refresh() {
+      if (!isStale()) {
+         return;
+      }
+      // An invalidation during the refresh makes the catalog stale again
+      long invalidated = invalidations.get();
+      List<ImageSummary> summaries = api.getImageApi().listImages();
+      Map<String, Image> known = imagesById;
+      List<String> newIds = Lists.newArrayList();
+      for (ImageSummary summary : summaries) {
+         if (!known.containsKey(summary.id())) {
+            newIds.add(summary.id());
+         }
+      }
+      Map<String, Image> inspected = Maps.newHashMap();
+      for (Image image : inspector.inspectImages(newIds)) {
+         inspected.put(image.id(), image);
+      }
+      ImmutableMap.Builder<String, Image> images = ImmutableMap.builder();
+      Map<String, String> tags = Maps.newHashMap();
+      for (ImageSummary summary : summaries) {
+         Image image = known.containsKey(summary.id()) ? known.get(summary.id()) : inspected.get(summary.id());
+         // deleted in the meantime
+         if (image == null) {
+            continue;
+         }
+         images.put(summary.id(), withRepoTags(image, summary.repoTags()));
+         for (String tag : summary.repoTags()) {
+            tags.put(tag, summary.id());
+         }
+      }
+      imagesById = images.build();
+      idsByTag = ImmutableMap.copyOf(tags);
+      expiresAt = System.nanoTime() + ttlNanos;
+      refreshedInvalidations = invalidated;
+   }
+
+   private static Image withRepoTags(Image image, List<String> repoTags) {
+      return Image.create(image.id(), image.author(), image.comment(), image.config(), image.containerConfig(),
+            image.parent(), image.created(), image.container(), image.dockerVersion(), image.architecture(),
+            image.os(), image.size(), image.virtualSize(), repoTags);
+   }
+
+}
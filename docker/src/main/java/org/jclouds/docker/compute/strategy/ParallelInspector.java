@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.allAsList;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.DockerApiMetadata;
+import org.jclouds.docker.domain.Container;
+import org.jclouds.docker.domain.ContainerSummary;
+import org.jclouds.docker.domain.Image;
+import org.jclouds.docker.options.ListContainerOptions;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Inspects containers, images, or other resources, in parallel. At most
+ * {@link DockerApiMetadata#DOCKER_INSPECT_PARALLELISM} tasks are submitted, each one inspecting resources from a
+ * shared queue until it is empty, so a large host does not flood the daemon.
+ * <p>
+ * The tasks run on an executor of their own rather than on the user executor: callers block until the
+ * inspections are done, and may themselves be tasks of a bounded user executor, which would then have no
+ * thread left to run the inspections.
+ */
+@Singleton
+public class ParallelInspector {
+
+   private final DockerApi api;
+   private final ListeningExecutorService inspectExecutor;
+   private final int inspectParallelism;
+
+   @Inject
+   ParallelInspector(DockerApi api, @Named(DockerApiMetadata.DOCKER_INSPECT_PARALLELISM) int inspectParallelism) {
+      this(api, newInspectExecutor(inspectParallelism), inspectParallelism);
+   }
+
+   ParallelInspector(DockerApi api, ListeningExecutorService inspectExecutor, int inspectParallelism) {
+      checkArgument(inspectParallelism > 0, "inspect parallelism must be positive");
+      this.api = checkNotNull(api, "api");
+      this.inspectExecutor = checkNotNull(inspectExecutor, "inspectExecutor");
+      this.inspectParallelism = inspectParallelism;
+   }
+
+   /**
+    * Creates a pool of at most one daemon thread per parallel inspection, whose threads stop when idle.
+    */
+   private static ListeningExecutorService newInspectExecutor(int inspectParallelism) {
+      checkArgument(inspectParallelism > 0, "inspect parallelism must be positive");
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(inspectParallelism, inspectParallelism, 60,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactoryBuilder().setNameFormat("docker-inspect-%d").setDaemon(true).build());
+      executor.allowCoreThreadTimeOut(true);
+      return MoreExecutors.listeningDecorator(executor);
+   }
+
+   @PreDestroy
+   public void close() {
+      inspectExecutor.shutdownNow();
+   }
+
+   /**
+    * Inspects all the containers of the host, running or not.
+    */
+   public Set<Container> inspectAllContainers() {
+      List<String> ids = Lists.newArrayList();
+      for (ContainerSummary containerSummary : api.getContainerApi().listContainers(ListContainerOptions.Builder.all(true))) {
+         ids.add(containerSummary.id());
+      }
+      return inspectContainers(ids);
+   }
+
+   /**
+    * Inspects the given containers. Containers removed in the meantime are skipped.
+    */
+   public Set<Container> inspectContainers(Iterable<String> ids) {
+      return inParallel(ids, new Function<String, Container>() {
+         @Override
+         public Container apply(String id) {
+            return api.getContainerApi().inspectContainer(id);
+         }
+      });
+   }
+
+   /**
+    * Inspects the given images. Images deleted in the meantime are skipped.
+    */
+   public Set<Image> inspectImages(Iterable<String> ids) {
+      return inParallel(ids, new Function<String, Image>() {
+         @Override
+         public Image apply(String id) {
+            return api.getImageApi().inspectImage(id);
+         }
+      });
+   }
+
+   /**
+    * Inspects resources in parallel. If an inspection fails, the other ones are cancelled and its
+    * exception is thrown as is.
+    *
+    * @param ids the ids of the resources
+    * @param inspection inspects a resource, returning <code>null</code> if it does not exist
+    * @return the resources that exist
+    */
+   public <T> Set<T> inParallel(Iterable<String> ids, final Function<String, T> inspection) {
+      final Queue<String> pending = new ConcurrentLinkedQueue<String>(ImmutableSet.copyOf(ids));
+      List<ListenableFuture<List<T>>> futures = Lists.newArrayList();
+      for (int i = 0; i < Math.min(inspectParallelism, pending.size()); i++) {
+         futures.add(inspectExecutor.submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() {
+               List<T> inspected = Lists.newArrayList();
+               for (String id = pending.poll(); id != null; id = pending.poll()) {
+                  T resource = inspection.apply(id);
+                  if (resource != null) {
+                     inspected.add(resource);
+                  }
+               }
+               return inspected;
+            }
+         }));
+      }
+      Set<T> resources = Sets.newHashSet();
+      try {
+         for (List<T> inspected : allAsList(futures).get()) {
+            resources.addAll(inspected);
+         }
+         return resources;
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } finally {
+         // Only does something if an inspection failed or the caller was interrupted
+         pending.clear();
+         for (Future<?> future : futures) {
+            future.cancel(true);
+         }
+      }
+   }
+
+}
@@ -17,17 +17,22 @@
 package org.jclouds.docker.config;
 
 import java.io.File;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.docker.suppliers.DockerSSLContextSupplier;
+import org.jclouds.docker.util.UnixDomainSocketFactory;
+import org.jclouds.docker.util.UnixSocketEndpoints;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.okhttp.OkHttpClientSupplier;
 import org.jclouds.location.Provider;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.squareup.okhttp.ConnectionPool;
 import com.squareup.okhttp.ConnectionSpec;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.TlsVersion;
@@ -35,18 +40,34 @@ import com.squareup.okhttp.TlsVersion;
 @Singleton
 public class DockerOkHttpClientSupplier implements OkHttpClientSupplier {
 
+    private static final int UNIX_SOCKET_MAX_IDLE_CONNECTIONS = 5;
+    private static final long UNIX_SOCKET_KEEP_ALIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
     private final DockerSSLContextSupplier dockerSSLContextSupplier;
     private final Supplier<Credentials> creds;
+    private final Supplier<URI> endpoint;
 
     @Inject
-    DockerOkHttpClientSupplier(DockerSSLContextSupplier dockerSSLContextSupplier, @Provider Supplier<Credentials> creds) {
+    DockerOkHttpClientSupplier(DockerSSLContextSupplier dockerSSLContextSupplier, @Provider Supplier<Credentials> creds,
+            @Provider Supplier<URI> endpoint) {
         this.dockerSSLContextSupplier = dockerSSLContextSupplier;
         this.creds = creds;
+        this.endpoint = endpoint;
     }
 
     @Override
     public OkHttpClient get() {
         OkHttpClient client = new OkHttpClient();
+        URI dockerEndpoint = endpoint.get();
+        if (UnixSocketEndpoints.isUnixSocket(dockerEndpoint)) {
+            // Plain HTTP over the socket file. The connections get their own pool, so they are kept alive and reused
+            // without ever being mixed up with TCP connections to localhost. junixsocket is optional, so the socket
+            // factory is only loaded here
+            client.setSocketFactory(UnixDomainSocketFactory.forSocketFile(new File(dockerEndpoint.getPath())));
+            client.setConnectionSpecs(ImmutableList.of(ConnectionSpec.CLEARTEXT));
+            client.setConnectionPool(new ConnectionPool(UNIX_SOCKET_MAX_IDLE_CONNECTIONS, UNIX_SOCKET_KEEP_ALIVE_MILLIS));
+            return client;
+        }
         ConnectionSpec tlsSpec = new ConnectionSpec.Builder(ConnectionSpec.MODERN_TLS)
                 .tlsVersions(TlsVersion.TLS_1_0, TlsVersion.TLS_1_1, TlsVersion.TLS_1_2)
                 .build();
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.config;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.docker.util.UnixSocketEndpoints.isUnixSocket;
+import static org.jclouds.docker.util.UnixSocketEndpoints.toHttpEndpoint;
+import java.net.URI;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.docker.util.UnixSocketEndpoints;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.okhttp.OkHttpCommandExecutorService;
+import org.jclouds.location.Provider;
+
+import com.google.common.base.Supplier;
+
+/**
+ * Sends the requests for a <code>unix://</code> endpoint to {@link UnixSocketEndpoints#SOCKET_HOST}, where the
+ * {@link DockerOkHttpClientSupplier client} connects through the socket file instead of a TCP port. Requests for
+ * other endpoints are sent unchanged.
+ */
+@Singleton
+public class UnixSocketCommandExecutorService implements HttpCommandExecutorService {
+
+   private final OkHttpCommandExecutorService delegate;
+   private final Supplier<URI> endpoint;
+
+   @Inject
+   UnixSocketCommandExecutorService(OkHttpCommandExecutorService delegate, @Provider Supplier<URI> endpoint) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      this.endpoint = checkNotNull(endpoint, "endpoint");
+   }
+
+   @Override
+   public HttpResponse invoke(HttpCommand command) {
+      URI socketEndpoint = endpoint.get();
+      if (isUnixSocket(socketEndpoint)) {
+         HttpRequest request = command.getCurrentRequest();
+         URI rewritten = toHttpEndpoint(socketEndpoint, request.getEndpoint());
+         if (!rewritten.equals(request.getEndpoint())) {
+            command.setCurrentRequest(request.toBuilder().endpoint(rewritten).build());
+         }
+      }
+      return delegate.invoke(command);
+   }
+
+}
@@ -185,7 +185,8 @@ public interface ContainerApi {
    /**
     * @param containerId The id of the container to be attached.
     * @param options the attach options @see org.jclouds.docker.options.AttachOptions
-    *
+    * @return the raw docker stream when the container has no tty, which can be demultiplexed with
+    *         {@link org.jclouds.docker.util.StdStreamDemultiplexer}
     */
    @Named("container:attach")
    @POST
@@ -33,7 +33,9 @@ import org.jclouds.docker.domain.ExecStartParams;
 import org.jclouds.docker.domain.Info;
 import org.jclouds.docker.domain.Version;
 import org.jclouds.docker.options.BuildOptions;
+import org.jclouds.docker.options.EventsOptions;
 import org.jclouds.docker.util.DockerInputStream;
+import org.jclouds.docker.util.EventReader;
 import org.jclouds.io.Payload;
 import org.jclouds.rest.annotations.BinderParam;
 import org.jclouds.rest.annotations.Headers;
@@ -63,6 +65,28 @@ public interface MiscApi {
    @Path("/info")
    Info getInfo();
 
+   /**
+    * Streams the events of the daemon as they happen, such as containers being created, started, stopped or
+    * destroyed.
+    *
+    * @return a stream of json events which stays open until it is closed, to be read with {@link EventReader}
+    */
+   @Named("events")
+   @GET
+   @Path("/events")
+   InputStream events();
+
+   /**
+    * Streams the events of the daemon.
+    *
+    * @param options the time range of the events (@see EventsOptions)
+    * @return a stream of json events, to be read with {@link EventReader}
+    */
+   @Named("events")
+   @GET
+   @Path("/events")
+   InputStream events(EventsOptions options);
+
    /**
     * Build an image from Dockerfile via stdin
     *
@@ -119,6 +143,7 @@ public interface MiscApi {
     *         {@link DockerInputStream}
     * @see #execCreate(String, ExecCreateParams)
     * @see DockerInputStream
+    * @see org.jclouds.docker.util.StdStreamDemultiplexer
     */
    @Named("exec:start")
    @POST
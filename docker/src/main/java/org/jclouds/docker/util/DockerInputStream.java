@@ -20,13 +20,19 @@ package org.jclouds.docker.util;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Extension to {@link DataInputStream} which adds method
  * {@link #readStdStreamData()} to allow read multiplexed standard streams.
+ * Large or chatty streams are better copied with
+ * {@link #demultiplex(OutputStream, OutputStream)}, which does not allocate
+ * per frame.
  */
 public final class DockerInputStream extends DataInputStream {
 
+   private final byte[] header = new byte[8];
+
    /**
     * Ctor from superclass.
     *
@@ -43,7 +49,6 @@ public final class DockerInputStream extends DataInputStream {
     * @throws IOException
     */
    public StdStreamData readStdStreamData() throws IOException {
-      byte[] header = new byte[8];
       // try to read first byte from the message header - just to check if we
       // are at the end
       // of stream
@@ -53,8 +58,7 @@ public final class DockerInputStream extends DataInputStream {
       // read the rest of the header
       readFully(header, 1, 7);
       // decode size as an unsigned int
-      long size = (long) (header[4] & 0xFF) << 24 | (header[5] & 0xFF) << 16 | (header[6] & 0xFF) << 8
-            | (header[7] & 0xFF);
+      long size = StdStreamDemultiplexer.frameSize(header);
 
       byte[] payload;
       // The size from the header is an unsigned int so it can happen the byte
@@ -65,9 +69,39 @@ public final class DockerInputStream extends DataInputStream {
       if (size > Integer.MAX_VALUE) {
          truncated = true;
          // skip the rest
-         readFully(new byte[(int) (size - Integer.MAX_VALUE)]);
+         skipFully(size - Integer.MAX_VALUE);
       }
       return new StdStreamData(header[0], payload, truncated);
    }
 
+   /**
+    * Copies the payload of the remaining frames to the given streams, through
+    * a single reusable buffer and without any limit on the frame size.
+    *
+    * @param stdout
+    *           destination of the standard output frames, or <code>null</code>
+    *           to discard them
+    * @param stderr
+    *           destination of the standard error frames, or <code>null</code>
+    *           to discard them
+    * @return the number of payload bytes read
+    * @throws IOException
+    * @see StdStreamDemultiplexer
+    */
+   public long demultiplex(OutputStream stdout, OutputStream stderr) throws IOException {
+      return new StdStreamDemultiplexer(this).demultiplex(stdout, stderr);
+   }
+
+   private void skipFully(long n) throws IOException {
+      for (long remaining = n; remaining > 0; ) {
+         int skipped = skipBytes((int) Math.min(Integer.MAX_VALUE, remaining));
+         if (skipped == 0) {
+            // skipBytes gives up at the end of the stream
+            readByte();
+            skipped = 1;
+         }
+         remaining -= skipped;
+      }
+   }
+
 }
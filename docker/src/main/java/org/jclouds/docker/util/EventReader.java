@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import org.jclouds.docker.domain.Event;
+import org.jclouds.json.Json;
+
+import com.google.common.base.Charsets;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonStreamParser;
+
+/**
+ * Reads the stream returned by {@link org.jclouds.docker.features.MiscApi#events()}, where the daemon writes a
+ * json object per event as they happen and keeps the stream open.
+ */
+public final class EventReader implements Closeable {
+
+   private final Json json;
+   private final Reader reader;
+   private final JsonStreamParser parser;
+
+   public EventReader(Json json, InputStream in) {
+      this.json = json;
+      this.reader = new InputStreamReader(in, Charsets.UTF_8);
+      this.parser = new JsonStreamParser(reader);
+   }
+
+   /**
+    * @return the next event, blocking until the daemon sends one, or <code>null</code> if we reached the end of
+    *         the stream.
+    * @throws IOException
+    */
+   public Event readEvent() throws IOException {
+      try {
+         if (!parser.hasNext()) {
+            return null;
+         }
+         return json.fromJson(parser.next().toString(), Event.class);
+      } catch (JsonIOException e) {
+         throw new IOException(e.getCause());
+      }
+   }
+
+   @Override
+   public void close() throws IOException {
+      reader.close();
+   }
+
+}
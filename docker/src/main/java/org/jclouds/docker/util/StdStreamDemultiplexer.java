@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import org.jclouds.docker.util.StdStreamData.StdStreamType;
+import org.jclouds.javax.annotation.Nullable;
+
+/**
+ * Demultiplexes a docker-raw-stream, as returned by attach, logs or exec start, by copying the payload of each frame
+ * to the destination of its stream as it is read. A single buffer is reused for all the frames, whatever their size,
+ * and nothing more is read while a destination blocks, so a slow consumer holds the container back instead of
+ * letting the frames pile up in memory.
+ * <p>
+ * Standard input frames, which the daemon does not send in practice, go to the standard output destination. A
+ * <code>null</code> destination discards the frames of its stream.
+ */
+public final class StdStreamDemultiplexer {
+
+   public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+   private static final int HEADER_SIZE = 8;
+
+   private final InputStream in;
+   private final byte[] header = new byte[HEADER_SIZE];
+   private final byte[] buffer;
+   private final ByteBuffer byteBuffer;
+
+   public StdStreamDemultiplexer(InputStream in) {
+      this(in, DEFAULT_BUFFER_SIZE);
+   }
+
+   public StdStreamDemultiplexer(InputStream in, int bufferSize) {
+      checkArgument(bufferSize > 0, "buffer size must be positive");
+      this.in = checkNotNull(in, "in");
+      this.buffer = new byte[bufferSize];
+      this.byteBuffer = ByteBuffer.wrap(buffer);
+   }
+
+   /**
+    * Copies the frames to the streams until the end of the multiplexed stream. The destinations are neither flushed
+    * nor closed.
+    *
+    * @return the number of payload bytes read
+    */
+   public long demultiplex(@Nullable OutputStream stdout, @Nullable OutputStream stderr) throws IOException {
+      return demultiplex(new StreamSink(stdout), new StreamSink(stderr));
+   }
+
+   /**
+    * Copies the frames to the channels until the end of the multiplexed stream. The channels must be in blocking
+    * mode, and are not closed.
+    *
+    * @return the number of payload bytes read
+    */
+   public long demultiplex(@Nullable WritableByteChannel stdout, @Nullable WritableByteChannel stderr)
+         throws IOException {
+      return demultiplex(new ChannelSink(stdout), new ChannelSink(stderr));
+   }
+
+   private long demultiplex(Sink stdout, Sink stderr) throws IOException {
+      long total = 0;
+      for (StdStreamType type = readHeader(); type != null; type = readHeader()) {
+         long size = frameSize(header);
+         copy(size, type == StdStreamType.ERR ? stderr : stdout);
+         total += size;
+      }
+      return total;
+   }
+
+   /**
+    * Reads the header of the next frame.
+    *
+    * @return the stream of the frame, or <code>null</code> at the end of the multiplexed stream
+    */
+   private StdStreamType readHeader() throws IOException {
+      // The end of the stream is only expected between two frames
+      int first = in.read();
+      if (first == -1) {
+         return null;
+      }
+      header[0] = (byte) first;
+      readFully(in, header, 1, HEADER_SIZE - 1);
+      return streamType(header[0]);
+   }
+
+   private void copy(long size, Sink sink) throws IOException {
+      long remaining = size;
+      while (remaining > 0) {
+         int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+         if (read == -1) {
+            throw new EOFException("multiplexed stream ended " + remaining + " bytes before the end of a frame");
+         }
+         sink.write(read);
+         remaining -= read;
+      }
+   }
+
+   static StdStreamType streamType(byte id) throws IOException {
+      StdStreamType[] types = StdStreamType.values();
+      if (id < 0 || id >= types.length) {
+         throw new IOException("unknown stream type " + id + " in multiplexed stream");
+      }
+      return types[id];
+   }
+
+   /**
+    * Decodes the payload size of a frame header, an unsigned big endian int.
+    */
+   static long frameSize(byte[] header) {
+      return (long) (header[4] & 0xFF) << 24 | (header[5] & 0xFF) << 16 | (header[6] & 0xFF) << 8
+            | (header[7] & 0xFF);
+   }
+
+   static void readFully(InputStream in, byte[] b, int off, int len) throws IOException {
+      for (int n = 0; n < len; ) {
+         int read = in.read(b, off + n, len - n);
+         if (read == -1) {
+            throw new EOFException();
+         }
+         n += read;
+      }
+   }
+
+   private interface Sink {
+      /** Writes the first bytes of the buffer. */
+      void write(int length) throws IOException;
+   }
+
+   private final class StreamSink implements Sink {
+      private final OutputStream out;
+
+      StreamSink(OutputStream out) {
+         this.out = out;
+      }
+
+      @Override
+      public void write(int length) throws IOException {
+         if (out != null) {
+            out.write(buffer, 0, length);
+         }
+      }
+   }
+
+   private final class ChannelSink implements Sink {
+      private final WritableByteChannel channel;
+
+      ChannelSink(WritableByteChannel channel) {
+         this.channel = channel;
+      }
+
+      @Override
+      public void write(int length) throws IOException {
+         if (channel != null) {
+            byteBuffer.clear().limit(length);
+            while (byteBuffer.hasRemaining()) {
+               channel.write(byteBuffer);
+            }
+         }
+      }
+   }
+
+}
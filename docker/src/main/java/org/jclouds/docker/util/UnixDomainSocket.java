@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+
+import org.newsclub.net.unix.AFUNIXSocket;
+import org.newsclub.net.unix.AFUNIXSocketAddress;
+
+/**
+ * A {@link Socket} connected to a Unix domain socket file whatever the address it is asked to connect to, so
+ * HTTP clients which only know about TCP can talk to a local Docker daemon. The TCP only options are ignored.
+ */
+public class UnixDomainSocket extends Socket {
+
+   private final File socketFile;
+   private final AFUNIXSocket socket;
+   private InetSocketAddress address;
+
+   public UnixDomainSocket(File socketFile) throws IOException {
+      this.socketFile = checkNotNull(socketFile, "socketFile");
+      this.socket = AFUNIXSocket.newInstance();
+   }
+
+   @Override
+   public void connect(SocketAddress endpoint) throws IOException {
+      connect(endpoint, 0);
+   }
+
+   @Override
+   public void connect(SocketAddress endpoint, int timeout) throws IOException {
+      if (endpoint instanceof InetSocketAddress) {
+         address = (InetSocketAddress) endpoint;
+      }
+      socket.connect(new AFUNIXSocketAddress(socketFile), timeout);
+   }
+
+   @Override
+   public void bind(SocketAddress bindpoint) throws IOException {
+      // The client side of a Unix domain socket is never bound to a local address
+   }
+
+   @Override
+   public InetAddress getInetAddress() {
+      return address == null ? null : address.getAddress();
+   }
+
+   @Override
+   public int getPort() {
+      return address == null ? 0 : address.getPort();
+   }
+
+   @Override
+   public SocketAddress getRemoteSocketAddress() {
+      return address;
+   }
+
+   @Override
+   public InputStream getInputStream() throws IOException {
+      return socket.getInputStream();
+   }
+
+   @Override
+   public OutputStream getOutputStream() throws IOException {
+      return socket.getOutputStream();
+   }
+
+   @Override
+   public void setSoTimeout(int timeout) throws SocketException {
+      socket.setSoTimeout(timeout);
+   }
+
+   @Override
+   public int getSoTimeout() throws SocketException {
+      return socket.getSoTimeout();
+   }
+
+   @Override
+   public void setSendBufferSize(int size) throws SocketException {
+      socket.setSendBufferSize(size);
+   }
+
+   @Override
+   public int getSendBufferSize() throws SocketException {
+      return socket.getSendBufferSize();
+   }
+
+   @Override
+   public void setReceiveBufferSize(int size) throws SocketException {
+      socket.setReceiveBufferSize(size);
+   }
+
+   @Override
+   public int getReceiveBufferSize() throws SocketException {
+      return socket.getReceiveBufferSize();
+   }
+
+   @Override
+   public void setTcpNoDelay(boolean on) {
+   }
+
+   @Override
+   public boolean getTcpNoDelay() {
+      return false;
+   }
+
+   @Override
+   public void setKeepAlive(boolean on) {
+   }
+
+   @Override
+   public boolean getKeepAlive() {
+      return false;
+   }
+
+   @Override
+   public void shutdownInput() throws IOException {
+      socket.shutdownInput();
+   }
+
+   @Override
+   public void shutdownOutput() throws IOException {
+      socket.shutdownOutput();
+   }
+
+   @Override
+   public boolean isInputShutdown() {
+      return socket.isInputShutdown();
+   }
+
+   @Override
+   public boolean isOutputShutdown() {
+      return socket.isOutputShutdown();
+   }
+
+   @Override
+   public boolean isConnected() {
+      return socket.isConnected();
+   }
+
+   @Override
+   public boolean isBound() {
+      return socket.isBound();
+   }
+
+   @Override
+   public boolean isClosed() {
+      return socket.isClosed();
+   }
+
+   @Override
+   public synchronized void close() throws IOException {
+      socket.close();
+   }
+
+   @Override
+   public String toString() {
+      return "UnixDomainSocket[" + socketFile + "]";
+   }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import javax.net.SocketFactory;
+
+/**
+ * Creates {@link UnixDomainSocket}s connected to a single socket file, for endpoints such as
+ * <code>unix:///var/run/docker.sock</code>. junixsocket is an optional dependency, so this class must only be used
+ * for such endpoints.
+ */
+public class UnixDomainSocketFactory extends SocketFactory {
+
+   private static final String JUNIXSOCKET_CLASS = "org.newsclub.net.unix.AFUNIXSocket";
+
+   private final File socketFile;
+
+   public UnixDomainSocketFactory(File socketFile) {
+      this.socketFile = checkNotNull(socketFile, "socketFile");
+   }
+
+   /**
+    * Creates a factory for a socket file, failing right away rather than on the first request when junixsocket is
+    * not on the classpath.
+    *
+    * @throws IllegalStateException if junixsocket is not available
+    */
+   public static UnixDomainSocketFactory forSocketFile(File socketFile) {
+      try {
+         Class.forName(JUNIXSOCKET_CLASS, false, UnixDomainSocketFactory.class.getClassLoader());
+      } catch (ClassNotFoundException e) {
+         throw new IllegalStateException("unix:// endpoints need junixsocket-core and junixsocket-native-common"
+               + " on the classpath", e);
+      }
+      return new UnixDomainSocketFactory(socketFile);
+   }
+
+   public File getSocketFile() {
+      return socketFile;
+   }
+
+   @Override
+   public Socket createSocket() throws IOException {
+      return new UnixDomainSocket(socketFile);
+   }
+
+   @Override
+   public Socket createSocket(String host, int port) throws IOException {
+      return connected(InetSocketAddress.createUnresolved(host, port));
+   }
+
+   @Override
+   public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+      return createSocket(host, port);
+   }
+
+   @Override
+   public Socket createSocket(InetAddress host, int port) throws IOException {
+      return connected(new InetSocketAddress(host, port));
+   }
+
+   @Override
+   public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+         throws IOException {
+      return createSocket(address, port);
+   }
+
+   private Socket connected(InetSocketAddress address) throws IOException {
+      Socket socket = createSocket();
+      socket.connect(address);
+      return socket;
+   }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import java.net.URI;
+
+/**
+ * Helpers for <code>unix://</code> endpoints, such as <code>unix:///var/run/docker.sock</code>. They do not use
+ * junixsocket, which is only needed on the classpath to actually connect to such an endpoint through
+ * {@link UnixDomainSocketFactory}.
+ */
+public final class UnixSocketEndpoints {
+
+   public static final String UNIX_SCHEME = "unix";
+
+   /** The host of the requests sent through a socket file. It is never resolved nor connected to. */
+   public static final String SOCKET_HOST = "localhost";
+
+   private UnixSocketEndpoints() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+
+   /**
+    * Whether the endpoint designates a Unix domain socket rather than a TCP port.
+    */
+   public static boolean isUnixSocket(URI endpoint) {
+      return UNIX_SCHEME.equalsIgnoreCase(endpoint.getScheme());
+   }
+
+   /**
+    * Strips the socket file from the path of a request built against a <code>unix://</code> endpoint, and makes it
+    * an HTTP request to {@link #SOCKET_HOST}. Other requests are returned unchanged.
+    */
+   public static URI toHttpEndpoint(URI socketEndpoint, URI requestEndpoint) {
+      if (!isUnixSocket(requestEndpoint)) {
+         return requestEndpoint;
+      }
+      String path = requestEndpoint.getRawPath() == null ? "" : requestEndpoint.getRawPath();
+      String socketPath = socketEndpoint.getRawPath();
+      if (socketPath != null && path.startsWith(socketPath)) {
+         path = path.substring(socketPath.length());
+      }
+      StringBuilder uri = new StringBuilder("http://").append(SOCKET_HOST);
+      uri.append(path.startsWith("/") ? path : "/" + path);
+      if (requestEndpoint.getRawQuery() != null) {
+         uri.append('?').append(requestEndpoint.getRawQuery());
+      }
+      return URI.create(uri.toString());
+   }
+
+}
@@ -0,0 +1,373 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.strategy;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.config.DockerParserModule;
+import org.jclouds.docker.domain.Container;
+import org.jclouds.docker.domain.Event;
+import org.jclouds.docker.domain.Image;
+import org.jclouds.docker.internal.BaseDockerMockTest;
+import org.jclouds.docker.parse.ContainerParseTest;
+import org.jclouds.docker.util.EventReader;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Guice;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+/**
+ * Mock tests for the {@link DockerComputeServiceAdapter} class.
+ */
+@Test(groups = "unit", testName = "DockerComputeServiceAdapterMockTest")
+public class DockerComputeServiceAdapterMockTest extends BaseDockerMockTest {
+
+   private static final String CONTAINER_ID_1 = "6d35806c1bd2b25cd92bba2d2c2c5169dc2156f53ab45c2b62d76e2d2fee14a9";
+   private static final String CONTAINER_ID_2 = "6d35806c1bd2b25cd92bba2d2c2c5169dc2156f53ab45c2b62d76e2d2fee14a2";
+   private static final String IMAGE_ID = "cbba6639a342646deed70d7ea6162fa2a0acea9300f911f4e014555fe37d3456";
+   private static final String IMAGE_ID_2 = "cbba6639a342646deed70d7ea6162fa2a0acea9300f911f4e014555fe37d3452";
+
+   public void testListNodesSkipsRemovedContainers() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody(payloadFromResource("/containers.json")),
+            new MockResponse().setResponseCode(404),
+            new MockResponse().setBody(payloadFromResource("/container.json")));
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(2));
+      DockerComputeServiceAdapter adapter = adapter(
+            api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule()), executor);
+      try {
+         // The container removed between the listing and its inspection is skipped
+         assertThat(adapter.listNodes()).containsOnly(new ContainerParseTest().expected());
+         assertSent(server, "GET", "/containers/json?all=true");
+         Set<String> inspected = Sets.newHashSet(server.takeRequest().getPath(), server.takeRequest().getPath());
+         assertThat(inspected).isEqualTo(ImmutableSet.of(
+               "/v" + API_VERSION + "/containers/" + CONTAINER_ID_1 + "/json",
+               "/v" + API_VERSION + "/containers/" + CONTAINER_ID_2 + "/json"));
+      } finally {
+         executor.shutdownNow();
+         server.shutdown();
+      }
+   }
+
+   public void testInspectionsOverlap() throws Exception {
+      MockWebServer server = mockWebServer();
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(2));
+      ParallelInspector inspector = new ParallelInspector(
+            api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule()), executor, 2);
+      final CyclicBarrier barrier = new CyclicBarrier(2);
+      try {
+         // Each inspection waits for the other one, so they only complete if they run at the same time
+         assertThat(inspector.inParallel(ImmutableList.of("a", "b"), new Function<String, String>() {
+            @Override
+            public String apply(String id) {
+               try {
+                  barrier.await(10, TimeUnit.SECONDS);
+               } catch (Exception e) {
+                  throw Throwables.propagate(e);
+               }
+               return id;
+            }
+         })).containsOnly("a", "b");
+      } finally {
+         executor.shutdownNow();
+         server.shutdown();
+      }
+   }
+
+   public void testFailedInspectionCancelsTheOthers() throws Exception {
+      MockWebServer server = mockWebServer();
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(2));
+      ParallelInspector inspector = new ParallelInspector(
+            api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule()), executor, 2);
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch interrupted = new CountDownLatch(1);
+      try {
+         inspector.inParallel(ImmutableList.of("fail", "block"), new Function<String, String>() {
+            @Override
+            public String apply(String id) {
+               try {
+                  if (id.equals("block")) {
+                     started.countDown();
+                     new CountDownLatch(1).await();
+                  } else {
+                     started.await();
+                  }
+               } catch (InterruptedException e) {
+                  interrupted.countDown();
+                  throw Throwables.propagate(e);
+               }
+               throw new IllegalStateException("inspection of " + id + " failed");
+            }
+         });
+         fail("expected the inspection failure");
+      } catch (IllegalStateException e) {
+         assertThat(e).hasMessage("inspection of fail failed");
+         assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+      } finally {
+         executor.shutdownNow();
+         server.shutdown();
+      }
+   }
+
+   public void testInspectionsFromTheOnlyUserThread() throws Exception {
+      MockWebServer server = mockWebServer();
+      ListeningExecutorService userExecutor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+      final ParallelInspector inspector = new ParallelInspector(
+            api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule()), 2);
+      try {
+         // The inspections do not wait for a user thread, so a user task can run them and wait for them
+         assertThat(userExecutor.submit(new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() {
+               return inspector.inParallel(ImmutableList.of("a", "b"), Functions.<String>identity());
+            }
+         }).get(10, TimeUnit.SECONDS)).containsOnly("a", "b");
+      } finally {
+         inspector.close();
+         userExecutor.shutdownNow();
+         server.shutdown();
+      }
+   }
+
+   public void testListNodesByIdsWithoutIds() throws Exception {
+      MockWebServer server = mockWebServer();
+      DockerComputeServiceAdapter adapter = adapter(
+            api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule()),
+            MoreExecutors.sameThreadExecutor());
+      try {
+         assertThat(adapter.listNodesByIds(ImmutableList.<String> of())).isEmpty();
+         assertThat(server.getRequestCount()).isEqualTo(0);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testContainerStateCacheFollowsEvents() throws Exception {
+      Container running = new ContainerParseTest().expected();
+      String stopped = new String(payloadFromResource("/container.json"), Charsets.UTF_8)
+            .replace("\"Running\": true", "\"Running\": false");
+      MockWebServer server = mockWebServer(new MockResponse().setBody(payloadFromResource("/containers.json")),
+            new MockResponse().setBody(payloadFromResource("/container.json")),
+            new MockResponse().setResponseCode(404),
+            new MockResponse().setBody(stopped),
+            new MockResponse().setResponseCode(204),
+            new MockResponse().setResponseCode(204),
+            new MockResponse().setBody(payloadFromResource("/container.json")),
+            new MockResponse().setBody(stopped));
+      PipedOutputStream firstStream = new PipedOutputStream();
+      PipedOutputStream secondStream = new PipedOutputStream();
+      FakeEventStream eventStream = new FakeEventStream(new PipedInputStream(firstStream),
+            new PipedInputStream(secondStream));
+      DockerApi api = api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule());
+      ParallelInspector inspector = new ParallelInspector(api, MoreExecutors.sameThreadExecutor(), 2);
+      ImageCatalog images = new ImageCatalog(api, inspector, 60);
+      ContainerStateCache cache = new ContainerStateCache(api, inspector, images, eventStream, json(), true);
+      DockerComputeServiceAdapter adapter = new DockerComputeServiceAdapter(api, inspector, cache, images);
+      Predicate<Container> isStopped = new Predicate<Container>() {
+         @Override
+         public boolean apply(Container container) {
+            return container != null && !container.state().running();
+         }
+      };
+      try {
+         // The stream is opened before the containers are inspected
+         cache.isSynchronized();
+         assertThat(eventStream.opened.poll(10, TimeUnit.SECONDS)).isEqualTo(Optional.<Long> absent());
+         assertSent(server, "GET", "/containers/json?all=true");
+         assertSent(server, "GET", "/containers/" + CONTAINER_ID_1 + "/json");
+         assertSent(server, "GET", "/containers/" + CONTAINER_ID_2 + "/json");
+
+         // Events are only read once all the containers are inspected
+         write(firstStream, "die", running.id(), 2);
+         assertSent(server, "GET", "/containers/" + running.id() + "/json");
+         assertThat(cache.awaitContainer(running.id(), isStopped, 10, TimeUnit.SECONDS)).isTrue();
+         assertThat(adapter.getNode(running.id()).state().running()).isFalse();
+         assertThat(adapter.listNodes()).hasSize(1);
+         assertThat(server.getRequestCount()).isEqualTo(4);
+
+         // The node is inspected again as soon as it is rebooted, without waiting for its events
+         adapter.rebootNode(running.id());
+         assertSent(server, "POST", "/containers/" + running.id() + "/stop");
+         assertSent(server, "POST", "/containers/" + running.id() + "/start");
+         assertSent(server, "GET", "/containers/" + running.id() + "/json");
+         assertThat(cache.getContainer(running.id())).isEqualTo(running);
+
+         // A broken stream is reopened from the last event, without inspecting all the containers again
+         firstStream.close();
+         assertThat(eventStream.opened.poll(10, TimeUnit.SECONDS)).isEqualTo(Optional.of(2L));
+         write(secondStream, "die", running.id(), 3);
+         assertSent(server, "GET", "/containers/" + running.id() + "/json");
+         assertThat(cache.awaitContainer(running.id(), isStopped, 10, TimeUnit.SECONDS)).isTrue();
+         assertThat(cache.isSynchronized()).isTrue();
+      } finally {
+         cache.close();
+         server.shutdown();
+      }
+   }
+
+   public void testEventStreamResumesFromTime() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody("{\"status\":\"start\",\"id\":\""
+            + CONTAINER_ID_1 + "\",\"from\":\"busybox\",\"time\":3}"));
+      EventStream eventStream = new EventStream(new OkHttpClient(),
+            Suppliers.ofInstance(URI.create(server.getUrl("/").toString())), API_VERSION, 0);
+      EventReader events = new EventReader(json(), eventStream.open(2L));
+      try {
+         assertThat(events.readEvent()).isEqualTo(Event.create("start", CONTAINER_ID_1, "busybox", 3));
+         assertThat(events.readEvent()).isNull();
+         assertSent(server, "GET", "/events?since=2");
+      } finally {
+         events.close();
+         server.shutdown();
+      }
+   }
+
+   public void testDisabledContainerStateCache() throws Exception {
+      MockWebServer server = mockWebServer();
+      DockerApi api = api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule());
+      ParallelInspector inspector = new ParallelInspector(api, MoreExecutors.sameThreadExecutor(), 2);
+      ContainerStateCache cache = new ContainerStateCache(api, inspector, new ImageCatalog(api, inspector, 60),
+            new FakeEventStream(), json(), false);
+      try {
+         assertThat(cache.isSynchronized()).isFalse();
+         assertThat(server.getRequestCount()).isEqualTo(0);
+      } finally {
+         cache.close();
+         server.shutdown();
+      }
+   }
+
+   public void testImageCatalogInspectsOnlyNewImages() throws Exception {
+      String newImage = new String(payloadFromResource("/image.json"), Charsets.UTF_8).replace(IMAGE_ID, IMAGE_ID_2);
+      MockWebServer server = mockWebServer(new MockResponse().setBody(payloadFromResource("/image.json")),
+            new MockResponse().setBody("[" + imageSummary(IMAGE_ID, "busybox:latest") + "]"),
+            new MockResponse().setBody(payloadFromResource("/image.json")),
+            new MockResponse().setBody(payloadFromResource("/image.json")),
+            new MockResponse().setBody(newImage),
+            new MockResponse().setBody("[" + imageSummary(IMAGE_ID, "busybox:latest") + ","
+                  + imageSummary(IMAGE_ID_2, "alpine:latest") + "]"),
+            new MockResponse().setBody(newImage));
+      DockerComputeServiceAdapter adapter = adapter(
+            api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule()),
+            MoreExecutors.sameThreadExecutor());
+      try {
+         // A single inspection, then the catalog is loaded to find the repo tags
+         Image image = adapter.getImage("busybox");
+         assertThat(image.id()).isEqualTo(IMAGE_ID);
+         assertThat(image.repoTags()).containsExactly("busybox:latest");
+         assertSent(server, "GET", "/images/busybox/json");
+         assertSent(server, "GET", "/images/json");
+         assertSent(server, "GET", "/images/" + IMAGE_ID + "/json");
+
+         // The catalog is still fresh
+         assertThat(adapter.getImage(IMAGE_ID).repoTags()).containsExactly("busybox:latest");
+         assertSent(server, "GET", "/images/" + IMAGE_ID + "/json");
+         assertThat(getOnlyElement(adapter.listImages()).id()).isEqualTo(IMAGE_ID);
+         assertThat(server.getRequestCount()).isEqualTo(4);
+
+         // An image the catalog does not know refreshes it, and only the new image is inspected
+         assertThat(adapter.getImage("alpine").repoTags()).containsExactly("alpine:latest");
+         assertSent(server, "GET", "/images/alpine/json");
+         assertSent(server, "GET", "/images/json");
+         assertSent(server, "GET", "/images/" + IMAGE_ID_2 + "/json");
+         assertThat(adapter.listImages()).hasSize(2);
+         assertThat(server.getRequestCount()).isEqualTo(7);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   private static DockerComputeServiceAdapter adapter(DockerApi api, ListeningExecutorService executor) {
+      ParallelInspector inspector = new ParallelInspector(api, executor, 2);
+      ImageCatalog images = new ImageCatalog(api, inspector, 60);
+      return new DockerComputeServiceAdapter(api, inspector,
+            new ContainerStateCache(api, inspector, images, new FakeEventStream(), json(), false), images);
+   }
+
+   private static String imageSummary(String id, String repoTag) {
+      return "{\"Created\":1403039463,\"Id\":\"" + id
+            + "\",\"ParentId\":\"e72ac664f4f0c6a061ac4ef332557a70d69b0c624b6add35f1c181ff7fff2287\","
+            + "\"RepoTags\":[\"" + repoTag + "\"],\"Size\":0,\"VirtualSize\":808709069}";
+   }
+
+   private static void write(OutputStream stream, String status, String id, long time) throws IOException {
+      stream.write(("{\"status\":\"" + status + "\",\"id\":\"" + id + "\",\"from\":\"busybox\",\"time\":" + time
+            + "}\n").getBytes(Charsets.UTF_8));
+      stream.flush();
+   }
+
+   private static Json json() {
+      return Guice.createInjector(new GsonModule()).getInstance(Json.class);
+   }
+
+   /**
+    * Returns the given streams one after the other, and records the time each one is opened from.
+    */
+   private static final class FakeEventStream extends EventStream {
+      private final BlockingQueue<Optional<Long>> opened = new LinkedBlockingQueue<Optional<Long>>();
+      private final Iterator<InputStream> streams;
+
+      FakeEventStream(InputStream... streams) {
+         super(new OkHttpClient(), Suppliers.ofInstance(URI.create("http://localhost")), API_VERSION, 0);
+         this.streams = Iterators.forArray(streams);
+      }
+
+      @Override
+      public InputStream open(Long since) throws IOException {
+         opened.add(Optional.fromNullable(since));
+         if (!streams.hasNext()) {
+            throw new IOException("no more event streams");
+         }
+         return streams.next();
+      }
+   }
+
+}
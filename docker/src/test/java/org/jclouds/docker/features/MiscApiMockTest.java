@@ -23,6 +23,7 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -32,21 +33,27 @@ import javax.ws.rs.core.HttpHeaders;
 
 import org.jclouds.docker.DockerApi;
 import org.jclouds.docker.config.DockerParserModule;
+import org.jclouds.docker.domain.Event;
 import org.jclouds.docker.domain.Exec;
 import org.jclouds.docker.domain.ExecCreateParams;
 import org.jclouds.docker.domain.ExecInspect;
 import org.jclouds.docker.domain.ExecStartParams;
 import org.jclouds.docker.internal.BaseDockerMockTest;
+import org.jclouds.docker.options.EventsOptions;
 import org.jclouds.docker.parse.InfoParseTest;
 import org.jclouds.docker.parse.VersionParseTest;
 import org.jclouds.docker.util.DockerInputStream;
+import org.jclouds.docker.util.EventReader;
 import org.jclouds.docker.util.StdStreamData;
 import org.jclouds.docker.util.StdStreamData.StdStreamType;
 import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
 import com.squareup.okhttp.mockwebserver.RecordedRequest;
@@ -79,6 +86,23 @@ public class MiscApiMockTest extends BaseDockerMockTest {
       }
    }
 
+   public void testEvents() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody(payloadFromResource("/events.json")));
+      MiscApi api = api(DockerApi.class, server.getUrl("/").toString()).getMiscApi();
+      Json json = Guice.createInjector(new GsonModule()).getInstance(Json.class);
+      EventReader events = new EventReader(json, api.events(EventsOptions.Builder.since(1374067900L)));
+      try {
+         assertEquals(events.readEvent(), Event.create("create",
+               "6c9932f478bd761f32ddb54ed28ab42ab6fac6f2a279f561ea31503ee9d39524", "busybox:latest", 1374067924));
+         assertEquals(events.readEvent(), Event.create("untag", "sha256:bd4c3a20f9d0", null, 1374067970));
+         assertNull(events.readEvent());
+         assertSent(server, "GET", "/events?since=1374067900");
+      } finally {
+         events.close();
+         server.shutdown();
+      }
+   }
+
    public void testBuildContainer() throws Exception {
       MockWebServer server = mockWebServer(new MockResponse().setResponseCode(200));
       MiscApi api = api(DockerApi.class, server.getUrl("/").toString()).getMiscApi();
@@ -124,6 +148,29 @@ public class MiscApiMockTest extends BaseDockerMockTest {
       }
    }
 
+   public void testExecStartDemultiplexed() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody(payloadFromResource("/exec.start")));
+      MiscApi api = api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule()).getMiscApi();
+      DockerInputStream dis = null;
+      try {
+         final String execId = "dbf45d296388032ebb9872edb75847f6655a72b4e9ab0d99ae1c75589c4ca957";
+         final ExecStartParams startParams = ExecStartParams.builder().detach(false).build();
+         dis = new DockerInputStream(api.execStart(execId, startParams));
+
+         ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+         ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+         assertEquals(dis.demultiplex(stdout, stderr), "StandardError".length());
+         assertEquals(stdout.toByteArray(), "Standard".getBytes(StandardCharsets.UTF_8));
+         assertEquals(stderr.toByteArray(), "Error".getBytes(StandardCharsets.UTF_8));
+         assertSent(server, "POST", "/exec/" + execId + "/start");
+      } finally {
+         if (dis != null) {
+            dis.close();
+         }
+         server.shutdown();
+      }
+   }
+
    public void testExecStart() throws Exception {
       MockWebServer server = mockWebServer(new MockResponse().setBody(payloadFromResource("/exec.start")));
       MiscApi api = api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule()).getMiscApi();
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import org.testng.annotations.Test;
+
+import com.google.common.primitives.Bytes;
+
+/**
+ * Unit tests for the {@link StdStreamDemultiplexer} class.
+ */
+@Test(groups = "unit", testName = "StdStreamDemultiplexerTest")
+public class StdStreamDemultiplexerTest {
+
+   public void testFramesLargerThanTheBuffer() throws IOException {
+      byte[] stream = Bytes.concat(frame(1, "Standard output"), frame(2, "Error"), frame(1, " continued"));
+      ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+      ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+      long read = new StdStreamDemultiplexer(new ByteArrayInputStream(stream), 4).demultiplex(stdout, stderr);
+      assertThat(read).isEqualTo(30);
+      assertThat(new String(stdout.toByteArray(), UTF_8)).isEqualTo("Standard output continued");
+      assertThat(new String(stderr.toByteArray(), UTF_8)).isEqualTo("Error");
+   }
+
+   public void testChannels() throws IOException {
+      byte[] stream = Bytes.concat(frame(2, "Error"), frame(1, "Standard"));
+      ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+      ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+      new StdStreamDemultiplexer(new ByteArrayInputStream(stream), 3).demultiplex(Channels.newChannel(stdout),
+            Channels.newChannel(stderr));
+      assertThat(new String(stdout.toByteArray(), UTF_8)).isEqualTo("Standard");
+      assertThat(new String(stderr.toByteArray(), UTF_8)).isEqualTo("Error");
+   }
+
+   public void testDiscardedStream() throws IOException {
+      byte[] stream = Bytes.concat(frame(2, "Error"), frame(1, "Standard"), frame(0, ""));
+      ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+      new StdStreamDemultiplexer(new ByteArrayInputStream(stream)).demultiplex(stdout, null);
+      assertThat(new String(stdout.toByteArray(), UTF_8)).isEqualTo("Standard");
+   }
+
+   @Test(expectedExceptions = EOFException.class)
+   public void testTruncatedFrame() throws IOException {
+      byte[] frame = frame(1, "Standard");
+      byte[] stream = new byte[frame.length - 3];
+      System.arraycopy(frame, 0, stream, 0, stream.length);
+      new StdStreamDemultiplexer(new ByteArrayInputStream(stream)).demultiplex(new ByteArrayOutputStream(), null);
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testUnknownStreamType() throws IOException {
+      new StdStreamDemultiplexer(new ByteArrayInputStream(frame(3, "?"))).demultiplex(new ByteArrayOutputStream(),
+            new ByteArrayOutputStream());
+   }
+
+   private static byte[] frame(int type, String payload) {
+      byte[] data = payload.getBytes(UTF_8);
+      byte[] header = { (byte) type, 0, 0, 0, (byte) (data.length >>> 24), (byte) (data.length >>> 16),
+            (byte) (data.length >>> 8), (byte) data.length };
+      return Bytes.concat(header, data);
+   }
+
+}
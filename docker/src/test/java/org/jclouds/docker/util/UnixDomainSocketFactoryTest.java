@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Charsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jclouds.util.Closeables2.closeQuietly;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.newsclub.net.unix.AFUNIXServerSocket;
+import org.newsclub.net.unix.AFUNIXSocket;
+import org.newsclub.net.unix.AFUNIXSocketAddress;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.squareup.okhttp.ConnectionSpec;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+/**
+ * Unit tests for the {@link UnixDomainSocketFactory} class, against a stub HTTP server bound to a socket file.
+ */
+@Test(groups = "unit", testName = "UnixDomainSocketFactoryTest", singleThreaded = true)
+public class UnixDomainSocketFactoryTest {
+
+   private File socketFile;
+   private AFUNIXServerSocket server;
+   private final AtomicInteger connections = new AtomicInteger();
+
+   @BeforeMethod
+   public void startServer() throws IOException {
+      if (!AFUNIXSocket.isSupported()) {
+         throw new SkipException("Unix domain sockets are not supported on this platform");
+      }
+      socketFile = File.createTempFile("docker", ".sock");
+      socketFile.delete();
+      server = AFUNIXServerSocket.newInstance();
+      server.bind(new AFUNIXSocketAddress(socketFile));
+      Thread acceptor = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               while (true) {
+                  serve(server.accept());
+               }
+            } catch (IOException e) {
+               // closed
+            }
+         }
+      });
+      acceptor.setDaemon(true);
+      acceptor.start();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void stopServer() {
+      closeQuietly(server);
+      if (socketFile != null) {
+         socketFile.delete();
+      }
+   }
+
+   public void testRequestsReuseTheConnection() throws IOException {
+      OkHttpClient client = new OkHttpClient();
+      client.setSocketFactory(new UnixDomainSocketFactory(socketFile));
+      client.setConnectionSpecs(ImmutableList.of(ConnectionSpec.CLEARTEXT));
+      for (int i = 0; i < 3; i++) {
+         Response response = client.newCall(new Request.Builder().url("http://localhost/_ping").build()).execute();
+         assertThat(response.code()).isEqualTo(200);
+         assertThat(response.body().string()).isEqualTo("OK");
+      }
+      assertThat(connections.get()).isEqualTo(1);
+   }
+
+   /**
+    * Answers <code>OK</code> to every request of a keep-alive connection, on its own thread.
+    */
+   private void serve(final Socket socket) {
+      connections.incrementAndGet();
+      Thread handler = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), US_ASCII));
+               OutputStream out = socket.getOutputStream();
+               for (String line = in.readLine(); line != null; line = in.readLine()) {
+                  if (line.isEmpty()) {
+                     out.write("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nOK".getBytes(US_ASCII));
+                     out.flush();
+                  }
+               }
+            } catch (IOException e) {
+               // closed by the client
+            } finally {
+               closeQuietly(socket);
+            }
+         }
+      });
+      handler.setDaemon(true);
+      handler.start();
+   }
+
+}
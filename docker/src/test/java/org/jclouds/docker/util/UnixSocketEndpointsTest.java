@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the {@link UnixSocketEndpoints} class.
+ */
+@Test(groups = "unit", testName = "UnixSocketEndpointsTest")
+public class UnixSocketEndpointsTest {
+
+   private final URI socket = URI.create("unix:///var/run/docker.sock");
+
+   public void testIsUnixSocket() {
+      assertTrue(UnixSocketEndpoints.isUnixSocket(socket));
+      assertFalse(UnixSocketEndpoints.isUnixSocket(URI.create("https://127.0.0.1:2376")));
+   }
+
+   public void testSocketPathIsStripped() {
+      assertEquals(UnixSocketEndpoints.toHttpEndpoint(socket,
+            URI.create("unix:///var/run/docker.sock/v1.21/containers/json?all=true")),
+            URI.create("http://localhost/v1.21/containers/json?all=true"));
+   }
+
+   public void testEncodedPathIsKept() {
+      assertEquals(UnixSocketEndpoints.toHttpEndpoint(socket,
+            URI.create("unix:///var/run/docker.sock/v1.21/images/busybox%3Alatest/json")),
+            URI.create("http://localhost/v1.21/images/busybox%3Alatest/json"));
+   }
+
+   public void testTcpEndpointIsUnchanged() {
+      URI endpoint = URI.create("https://127.0.0.1:2376/v1.21/containers/json");
+      assertEquals(UnixSocketEndpoints.toHttpEndpoint(socket, endpoint), endpoint);
+   }
+
+}
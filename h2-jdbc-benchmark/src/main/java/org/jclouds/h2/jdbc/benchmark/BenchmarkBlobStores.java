@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.benchmark;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Random;
+import java.util.UUID;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.h2.jdbc.config.H2JdbcProperties;
+import org.jclouds.h2.jdbc.reference.H2JdbcConstants;
+import org.jclouds.jdbc.config.JdbcProperties;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+
+/**
+ * Helpers shared by the benchmarks.
+ */
+final class BenchmarkBlobStores {
+
+   static final String CONTAINER = "benchmark";
+
+   /**
+    * Size of the random block content is made of. It is not a multiple of any chunk size, so
+    * the chunks of a large blob differ from each other and deduplication gains nothing.
+    */
+   private static final int BLOCK_SIZE = 1024 * 1024 + 7;
+
+   private static final byte[] BLOCK = new byte[BLOCK_SIZE];
+
+   static {
+      new Random(42).nextBytes(BLOCK);
+   }
+
+   private BenchmarkBlobStores() {
+      throw new AssertionError("Intentionally Unimplemented");
+   }
+
+   /**
+    * Creates a jdbc blobstore on a new in-memory h2 database, so disk access does not blur
+    * the measurements.
+    *
+    * @param chunkSize the chunk size of the blobstore
+    */
+   static BlobStoreContext createContext(int chunkSize) {
+      return createContext(H2JdbcConstants.STORAGE_MEMORY, newDatabaseFile(), chunkSize, "create");
+   }
+
+   /**
+    * Creates a jdbc blobstore on an h2 database.
+    *
+    * @param storage the h2 storage, see {@link H2JdbcProperties#STORAGE}
+    * @param databaseFile the database file, or name for the memory storage
+    * @param chunkSize the chunk size of the blobstore
+    * @param schema the schema mode, see {@link H2JdbcProperties#SCHEMA}
+    */
+   static BlobStoreContext createContext(String storage, String databaseFile, int chunkSize, String schema) {
+      Properties overrides = new Properties();
+      overrides.setProperty(H2JdbcProperties.STORAGE, storage);
+      overrides.setProperty(H2JdbcProperties.DATABASE_FILE, databaseFile);
+      overrides.setProperty(H2JdbcProperties.SCHEMA, schema);
+      overrides.setProperty(JdbcProperties.CHUNK_SIZE, String.valueOf(chunkSize));
+      return ContextBuilder.newBuilder("h2-jdbc")
+            .overrides(overrides)
+            .buildView(BlobStoreContext.class);
+   }
+
+   static String newDatabaseFile() {
+      return "./target/benchmark-" + UUID.randomUUID();
+   }
+
+   static void deleteDatabaseFile(String databaseFile) {
+      new File(databaseFile + ".mv.db").delete();
+   }
+
+   /**
+    * Returns repeatable pseudo-random content of any size without holding it in memory.
+    */
+   static ByteSource content(long size) {
+      ByteSource block = ByteSource.wrap(BLOCK);
+      return ByteSource.concat(ImmutableList.<ByteSource>builder()
+            .addAll(Collections.nCopies((int) (size / BLOCK_SIZE), block))
+            .add(block.slice(0, size % BLOCK_SIZE))
+            .build());
+   }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.benchmark;
+
+import static org.jclouds.h2.jdbc.benchmark.BenchmarkBlobStores.CONTAINER;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.options.GetOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Measures the throughput and latency of single blob operations for several blob and chunk
+ * sizes. Writers use a key per thread, so the database does not grow during a run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class BlobBenchmark {
+
+   private static final String READ_KEY = "read";
+   private static final long RANGE_LENGTH = 1024;
+
+   @Param({ "1024", "1048576", "67108864", "1073741824" })
+   private long blobSize;
+
+   @Param({ "65536", "1048576", "4194304" })
+   private int chunkSize;
+
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+   private ByteSource content;
+   private GetOptions range;
+
+   @State(Scope.Thread)
+   public static class ThreadKey {
+      private static final AtomicInteger THREADS = new AtomicInteger();
+
+      private final String key = "blob-" + THREADS.incrementAndGet();
+   }
+
+   /**
+    * A blob stored before each invocation of the benchmark deleting it.
+    */
+   @State(Scope.Thread)
+   public static class StoredBlob extends ThreadKey {
+      @Setup(Level.Invocation)
+      public void putBlob(BlobBenchmark benchmark) {
+         benchmark.putBlob(this);
+      }
+   }
+
+   @Setup
+   public void setUp() {
+      context = BenchmarkBlobStores.createContext(chunkSize);
+      blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, CONTAINER);
+      content = BenchmarkBlobStores.content(blobSize);
+      blobStore.putBlob(CONTAINER, blob(READ_KEY));
+      long rangeLength = Math.min(RANGE_LENGTH, blobSize);
+      long rangeStart = (blobSize - rangeLength) / 2;
+      range = GetOptions.Builder.range(rangeStart, rangeStart + rangeLength - 1);
+   }
+
+   @TearDown
+   public void tearDown() {
+      context.close();
+   }
+
+   @Benchmark
+   public String putBlob(ThreadKey threadKey) {
+      return blobStore.putBlob(CONTAINER, blob(threadKey.key));
+   }
+
+   @Benchmark
+   public long getBlob() throws IOException {
+      return read(blobStore.getBlob(CONTAINER, READ_KEY));
+   }
+
+   @Benchmark
+   public long getBlobRange() throws IOException {
+      return read(blobStore.getBlob(CONTAINER, READ_KEY, range));
+   }
+
+   @Benchmark
+   public void removeBlob(StoredBlob storedBlob) {
+      blobStore.removeBlob(CONTAINER, storedBlob.key);
+   }
+
+   private Blob blob(String key) {
+      return blobStore.blobBuilder(key).payload(content).contentLength(blobSize).build();
+   }
+
+   private static long read(Blob blob) throws IOException {
+      InputStream in = blob.getPayload().openStream();
+      try {
+         return ByteStreams.copy(in, ByteStreams.nullOutputStream());
+      } finally {
+         in.close();
+      }
+   }
+
+}
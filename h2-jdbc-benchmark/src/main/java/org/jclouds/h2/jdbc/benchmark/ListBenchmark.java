@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.benchmark;
+
+import static org.jclouds.blobstore.options.ListContainerOptions.Builder.afterMarker;
+import static org.jclouds.h2.jdbc.benchmark.BenchmarkBlobStores.CONTAINER;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteSource;
+
+/**
+ * Measures listing and counting a container for several container sizes. The container holds
+ * 1 KB blobs spread over directories of 100 blobs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ListBenchmark {
+
+   private static final int DIRECTORY_SIZE = 100;
+
+   @Param({ "100", "10000", "100000" })
+   private int containerSize;
+
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+
+   @Setup
+   public void setUp() {
+      context = BenchmarkBlobStores.createContext(JdbcConstants.DEFAULT_CHUNK_SIZE);
+      blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, CONTAINER);
+      ByteSource content = BenchmarkBlobStores.content(1024);
+      for (int i = 0; i < containerSize; i++) {
+         String key = String.format("dir-%05d/blob-%05d", i / DIRECTORY_SIZE, i);
+         blobStore.putBlob(CONTAINER, blobStore.blobBuilder(key).payload(content).contentLength(1024L).build());
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      context.close();
+   }
+
+   @Benchmark
+   public PageSet<? extends StorageMetadata> listFirstPage() {
+      return blobStore.list(CONTAINER, ListContainerOptions.Builder.recursive());
+   }
+
+   @Benchmark
+   public int listAllPages() {
+      int count = 0;
+      PageSet<? extends StorageMetadata> page = blobStore.list(CONTAINER, ListContainerOptions.Builder.recursive());
+      count += page.size();
+      while (page.getNextMarker() != null) {
+         page = blobStore.list(CONTAINER, afterMarker(page.getNextMarker()).recursive());
+         count += page.size();
+      }
+      return count;
+   }
+
+   @Benchmark
+   public PageSet<? extends StorageMetadata> listDirectory() {
+      return blobStore.list(CONTAINER, ListContainerOptions.Builder.inDirectory("dir-00000"));
+   }
+
+   @Benchmark
+   public long countBlobs() {
+      return blobStore.countBlobs(CONTAINER);
+   }
+
+}
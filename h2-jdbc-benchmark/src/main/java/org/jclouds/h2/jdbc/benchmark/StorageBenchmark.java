@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.benchmark;
+
+import static org.jclouds.h2.jdbc.benchmark.BenchmarkBlobStores.CONTAINER;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Compares the h2 storages on puts and gets: in memory, in a file, and in a memory mapped file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class StorageBenchmark {
+
+   private static final String READ_KEY = "read";
+
+   @Param({ "memory", "file", "mapped-file" })
+   private String storage;
+
+   @Param({ "1048576", "67108864" })
+   private long blobSize;
+
+   private String databaseFile;
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+   private ByteSource content;
+
+   @State(Scope.Thread)
+   public static class ThreadKey {
+      private static final AtomicInteger THREADS = new AtomicInteger();
+
+      private final String key = "blob-" + THREADS.incrementAndGet();
+   }
+
+   @Setup
+   public void setUp() {
+      databaseFile = BenchmarkBlobStores.newDatabaseFile();
+      context = BenchmarkBlobStores.createContext(storage, databaseFile, JdbcConstants.DEFAULT_CHUNK_SIZE, "create");
+      blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, CONTAINER);
+      content = BenchmarkBlobStores.content(blobSize);
+      blobStore.putBlob(CONTAINER, blob(READ_KEY));
+   }
+
+   @TearDown
+   public void tearDown() {
+      context.close();
+      BenchmarkBlobStores.deleteDatabaseFile(databaseFile);
+   }
+
+   @Benchmark
+   public String putBlob(ThreadKey threadKey) {
+      return blobStore.putBlob(CONTAINER, blob(threadKey.key));
+   }
+
+   @Benchmark
+   public long getBlob() throws IOException {
+      InputStream in = blobStore.getBlob(CONTAINER, READ_KEY).getPayload().openStream();
+      try {
+         return ByteStreams.copy(in, ByteStreams.nullOutputStream());
+      } finally {
+         in.close();
+      }
+   }
+
+   private Blob blob(String key) {
+      return blobStore.blobBuilder(key).payload(content).contentLength(blobSize).build();
+   }
+
+}
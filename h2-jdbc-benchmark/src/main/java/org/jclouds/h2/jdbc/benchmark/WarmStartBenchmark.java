@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.benchmark;
+
+import static org.jclouds.h2.jdbc.benchmark.BenchmarkBlobStores.CONTAINER;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteSource;
+
+/**
+ * Measures how long a persistent blobstore takes to open and serve its first request, for
+ * several amounts of stored data. The start time should not grow with the data, since the
+ * schema is only validated and h2 does not scan the database file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WarmStartBenchmark {
+
+   private static final String KEY = "blob-0";
+
+   @Param({ "file", "mapped-file" })
+   private String storage;
+
+   @Param({ "10", "1000" })
+   private int storedMegabytes;
+
+   private String databaseFile;
+
+   @Setup
+   public void setUp() {
+      databaseFile = BenchmarkBlobStores.newDatabaseFile();
+      BlobStoreContext context = BenchmarkBlobStores.createContext(storage, databaseFile,
+            JdbcConstants.DEFAULT_CHUNK_SIZE, "create");
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         blobStore.createContainerInLocation(null, CONTAINER);
+         ByteSource content = BenchmarkBlobStores.content(1024 * 1024);
+         for (int i = 0; i < storedMegabytes; i++) {
+            blobStore.putBlob(CONTAINER, blobStore.blobBuilder("blob-" + i).payload(content)
+                  .contentLength(1024 * 1024L).build());
+         }
+      } finally {
+         context.close();
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      BenchmarkBlobStores.deleteDatabaseFile(databaseFile);
+   }
+
+   @Benchmark
+   public boolean openAndRead() {
+      BlobStoreContext context = BenchmarkBlobStores.createContext(storage, databaseFile,
+            JdbcConstants.DEFAULT_CHUNK_SIZE, "validate");
+      try {
+         return context.getBlobStore().blobExists(CONTAINER, KEY);
+      } finally {
+         context.close();
+      }
+   }
+
+}
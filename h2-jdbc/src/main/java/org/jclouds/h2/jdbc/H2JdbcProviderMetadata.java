@@ -16,12 +16,26 @@
  */
 package org.jclouds.h2.jdbc;
 
+import static org.jclouds.h2.jdbc.config.H2JdbcProperties.DATABASE_FILE;
+import static org.jclouds.h2.jdbc.config.H2JdbcProperties.DATABASE_SETTINGS;
+import static org.jclouds.h2.jdbc.config.H2JdbcProperties.SCHEMA;
+import static org.jclouds.h2.jdbc.config.H2JdbcProperties.STORAGE;
+import static org.jclouds.jdbc.config.JdbcProperties.CHUNK_SIZE;
+import static org.jclouds.jdbc.config.JdbcProperties.PERSISTENCE_PROPERTIES;
+import static org.jclouds.jdbc.config.JdbcProperties.READ_AHEAD_CHUNKS;
+import static org.jclouds.jdbc.config.JdbcProperties.WRITE_BATCH_SIZE;
+
+import java.util.Properties;
+
 import org.jclouds.h2.jdbc.config.H2JdbcBlobStoreContextModule;
+import org.jclouds.h2.jdbc.reference.H2JdbcConstants;
 import org.jclouds.jdbc.JdbcApiMetadata;
 import org.jclouds.providers.ProviderMetadata;
 import org.jclouds.providers.internal.BaseProviderMetadata;
 
 import com.google.auto.service.AutoService;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
 
 @AutoService(ProviderMetadata.class)
 public class H2JdbcProviderMetadata extends BaseProviderMetadata {
@@ -35,6 +49,55 @@ public class H2JdbcProviderMetadata extends BaseProviderMetadata {
       return builder().fromProviderMetadata(this);
    }
 
+   public static Properties defaultProperties() {
+      Properties properties = JdbcApiMetadata.defaultProperties();
+      properties.setProperty(STORAGE, H2JdbcConstants.DEFAULT_STORAGE);
+      properties.setProperty(DATABASE_FILE, H2JdbcConstants.DEFAULT_DATABASE_FILE);
+      properties.setProperty(SCHEMA, H2JdbcConstants.DEFAULT_SCHEMA);
+      properties.setProperty(DATABASE_SETTINGS, H2JdbcConstants.DEFAULT_DATABASE_SETTINGS);
+      return properties;
+   }
+
+   /**
+    * Settings for a durable blobstore, to pass as overrides to the context builder. The
+    * database is kept in a file, mapped into memory if requested, and its schema is updated
+    * instead of being created again, so the blobs survive restarts.
+    *
+    * @param databaseFile path of the database file, without extension
+    * @param memoryMapped whether the file is accessed through a memory mapping
+    */
+   public static Properties persistentProperties(String databaseFile, boolean memoryMapped) {
+      Properties properties = new Properties();
+      properties.setProperty(STORAGE, memoryMapped ? H2JdbcConstants.STORAGE_MAPPED_FILE
+            : H2JdbcConstants.STORAGE_FILE);
+      properties.setProperty(DATABASE_FILE, databaseFile);
+      properties.setProperty(SCHEMA, "update");
+      return properties;
+   }
+
+   /**
+    * Settings for workloads of large blobs written and read by many clients at once, to pass
+    * as overrides to the context builder. Chunks are larger and written in batches of the
+    * same size as the JDBC statement batches, the connection pool is larger, and h2 keeps
+    * more pages and compiled statements in memory. Each writer may buffer up to 16 MB of
+    * chunks and each reader reads ahead 16 MB.
+    */
+   public static Properties highThroughputProperties() {
+      Properties properties = new Properties();
+      properties.setProperty(CHUNK_SIZE, String.valueOf(2 * 1024 * 1024));
+      properties.setProperty(WRITE_BATCH_SIZE, "8");
+      properties.setProperty(READ_AHEAD_CHUNKS, "8");
+      properties.setProperty(DATABASE_SETTINGS, "CACHE_SIZE=262144;QUERY_CACHE_SIZE=32");
+      properties.setProperty(PERSISTENCE_PROPERTIES, Joiner.on(',').withKeyValueSeparator("=").join(
+            ImmutableMap.<String, String>builder()
+                  .put("hibernate.hikari.maximumPoolSize", "32")
+                  .put("hibernate.hikari.minimumIdle", "8")
+                  .put("hibernate.jdbc.batch_size", "8")
+                  .put("hibernate.jdbc.fetch_size", "256")
+                  .build()));
+      return properties;
+   }
+
    public H2JdbcProviderMetadata() {
       super(builder());
    }
@@ -50,7 +113,8 @@ public class H2JdbcProviderMetadata extends BaseProviderMetadata {
                .apiMetadata(new JdbcApiMetadata()
                      .toBuilder()
                      .defaultModule(H2JdbcBlobStoreContextModule.class)
-                     .build());
+                     .build())
+               .defaultProperties(H2JdbcProviderMetadata.defaultProperties());
       }
 
       @Override
@@ -16,23 +16,17 @@
  */
 package org.jclouds.h2.jdbc.config;
 
-import java.util.Properties;
-
 import org.jclouds.jdbc.config.JdbcBlobStoreContextModule;
+import org.jclouds.jdbc.config.PersistenceConfigurer;
 
 import com.google.inject.persist.jpa.JpaPersistModule;
 
 public class H2JdbcBlobStoreContextModule extends JdbcBlobStoreContextModule {
 
-   private static final String DEFAULT_FILE = "./jclouds-db";
-
    protected void configure() {
       super.configure();
-
-      Properties properties = new Properties();
-      properties.setProperty("hibernate.connection.url", "jdbc:h2:" + DEFAULT_FILE);
-
-      install(new JpaPersistModule("jclouds-h2").properties(properties));
+      bind(PersistenceConfigurer.class).to(H2PersistenceConfigurer.class);
+      install(new JpaPersistModule("jclouds-h2").properties(persistenceProperties()));
    }
 
 }
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.config;
+
+/**
+ * Configuration properties for the h2 jdbc blobstore
+ */
+public final class H2JdbcProperties {
+
+   /**
+    * Where the database is kept: {@code memory} for a transient database living as long as
+    * the JVM, {@code file} for a database file read and written through regular file
+    * operations, or {@code mapped-file} for a database file mapped into memory with NIO.
+    * <p>
+    * Default value: file.
+    */
+   public static final String STORAGE = "jclouds.h2.storage";
+
+   /**
+    * Path of the database file, without its {@code .mv.db} extension. Relative paths must start
+    * with {@code ./}. With the {@code memory} storage, it is the name of the database.
+    * <p>
+    * Default value: ./jclouds-db.
+    */
+   public static final String DATABASE_FILE = "jclouds.h2.database-file";
+
+   /**
+    * What happens to the schema when the blobstore starts: {@code create} drops and creates it,
+    * deleting any stored blob, {@code update} creates the missing tables and columns, and
+    * {@code validate} fails if the schema does not match the entities. Persistent databases
+    * should use {@code update} or {@code validate}, which only read the schema metadata.
+    * <p>
+    * Default value: create.
+    */
+   public static final String SCHEMA = "jclouds.h2.schema";
+
+   /**
+    * Settings appended to the h2 database URL, separated by semicolons, for instance
+    * {@code CACHE_SIZE=262144;QUERY_CACHE_SIZE=32}.
+    * <p>
+    * Default value: empty.
+    */
+   public static final String DATABASE_SETTINGS = "jclouds.h2.database-settings";
+
+   private H2JdbcProperties() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.config;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Properties;
+
+import javax.inject.Named;
+
+import org.jclouds.h2.jdbc.reference.H2JdbcConstants;
+import org.jclouds.jdbc.config.PersistenceConfigurer;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Inject;
+
+/**
+ * Builds the h2 database URL and picks the schema generation mode from the configuration.
+ * All the storages use the MVStore engine, which opens a database by reading its header and
+ * the metadata of its latest chunk, so a persistent database starts without scanning its data.
+ */
+public class H2PersistenceConfigurer implements PersistenceConfigurer {
+
+   private static final ImmutableSet<String> SCHEMA_MODES = ImmutableSet.of("create", "update", "validate");
+
+   private String storage = H2JdbcConstants.DEFAULT_STORAGE;
+   private String databaseFile = H2JdbcConstants.DEFAULT_DATABASE_FILE;
+   private String schema = H2JdbcConstants.DEFAULT_SCHEMA;
+   private String databaseSettings = H2JdbcConstants.DEFAULT_DATABASE_SETTINGS;
+
+   @Inject(optional = true)
+   void setStorage(@Named(H2JdbcProperties.STORAGE) String storage) {
+      this.storage = storage.trim();
+   }
+
+   @Inject(optional = true)
+   void setDatabaseFile(@Named(H2JdbcProperties.DATABASE_FILE) String databaseFile) {
+      this.databaseFile = databaseFile.trim();
+   }
+
+   @Inject(optional = true)
+   void setSchema(@Named(H2JdbcProperties.SCHEMA) String schema) {
+      checkArgument(SCHEMA_MODES.contains(schema.trim()), "schema must be one of %s", SCHEMA_MODES);
+      this.schema = schema.trim();
+   }
+
+   @Inject(optional = true)
+   void setDatabaseSettings(@Named(H2JdbcProperties.DATABASE_SETTINGS) String databaseSettings) {
+      this.databaseSettings = databaseSettings.trim();
+   }
+
+   @Override
+   public void configure(Properties unitProperties) {
+      unitProperties.setProperty("hibernate.connection.url", databaseUrl());
+      unitProperties.setProperty("hibernate.hbm2ddl.auto", schema);
+   }
+
+   String databaseUrl() {
+      String url;
+      if (H2JdbcConstants.STORAGE_MEMORY.equals(storage)) {
+         // Keeps the database alive while the connection pool has no connection open
+         url = "jdbc:h2:mem:" + databaseFile + ";DB_CLOSE_DELAY=-1";
+      } else if (H2JdbcConstants.STORAGE_FILE.equals(storage)) {
+         url = "jdbc:h2:file:" + databaseFile + ";MV_STORE=TRUE";
+      } else if (H2JdbcConstants.STORAGE_MAPPED_FILE.equals(storage)) {
+         url = "jdbc:h2:nioMapped:" + databaseFile + ";MV_STORE=TRUE";
+      } else {
+         throw new IllegalArgumentException("unknown h2 storage: " + storage);
+      }
+      return databaseSettings.isEmpty() ? url : url + ";" + databaseSettings;
+   }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.reference;
+
+/**
+ * Common constants used in h2 jdbc provider
+ */
+public final class H2JdbcConstants {
+
+    public static final String STORAGE_MEMORY = "memory";
+
+    public static final String STORAGE_FILE = "file";
+
+    public static final String STORAGE_MAPPED_FILE = "mapped-file";
+
+    public static final String DEFAULT_STORAGE = STORAGE_FILE;
+
+    public static final String DEFAULT_DATABASE_FILE = "./jclouds-db";
+
+    public static final String DEFAULT_SCHEMA = "create";
+
+    public static final String DEFAULT_DATABASE_SETTINGS = "";
+
+    private H2JdbcConstants() {
+        throw new AssertionError("Intentionally Unimplemented");
+    }
+}
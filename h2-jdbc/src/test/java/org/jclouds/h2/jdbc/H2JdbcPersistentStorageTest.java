@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.io.ByteStreams2;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "H2JdbcPersistentStorageTest")
+public class H2JdbcPersistentStorageTest {
+
+   private static final String CONTAINER_NAME = "jclouds-test-container";
+   private static final String BLOB_NAME = "jclouds-test-blob";
+
+   @DataProvider
+   public Object[][] storages() {
+      return new Object[][] { { false }, { true } };
+   }
+
+   @Test(dataProvider = "storages")
+   public void testBlobsSurviveRestart(boolean memoryMapped) throws IOException {
+      String databaseFile = "./target/persistent-" + (memoryMapped ? "mapped" : "file") + "-" + System.nanoTime();
+      byte[] content = "persistent content".getBytes();
+
+      BlobStoreContext context = createContext(databaseFile, memoryMapped);
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         blobStore.createContainerInLocation(null, CONTAINER_NAME);
+         blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(BLOB_NAME).payload(content).build());
+      } finally {
+         context.close();
+      }
+
+      context = createContext(databaseFile, memoryMapped);
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         assertThat(blobStore.blobExists(CONTAINER_NAME, BLOB_NAME)).isTrue();
+         assertThat(ByteStreams2.toByteArrayAndClose(blobStore.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload()
+               .openStream())).isEqualTo(content);
+      } finally {
+         context.close();
+      }
+   }
+
+   @Test
+   public void testHighThroughputProperties() throws IOException {
+      Properties overrides = H2JdbcProviderMetadata.persistentProperties("./target/persistent-tuned-"
+            + System.nanoTime(), false);
+      overrides.putAll(H2JdbcProviderMetadata.highThroughputProperties());
+      BlobStoreContext context = ContextBuilder.newBuilder("h2-jdbc").overrides(overrides)
+            .buildView(BlobStoreContext.class);
+      try {
+         BlobStore blobStore = context.getBlobStore();
+         blobStore.createContainerInLocation(null, CONTAINER_NAME);
+         blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(BLOB_NAME).payload("tuned").build());
+         assertThat(ByteStreams2.toByteArrayAndClose(blobStore.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload()
+               .openStream())).isEqualTo("tuned".getBytes());
+      } finally {
+         context.close();
+      }
+   }
+
+   private static BlobStoreContext createContext(String databaseFile, boolean memoryMapped) {
+      return ContextBuilder.newBuilder("h2-jdbc")
+            .overrides(H2JdbcProviderMetadata.persistentProperties(databaseFile, memoryMapped))
+            .buildView(BlobStoreContext.class);
+   }
+
+}
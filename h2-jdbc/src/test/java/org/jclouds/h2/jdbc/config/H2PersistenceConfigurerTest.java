@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.h2.jdbc.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "H2PersistenceConfigurerTest")
+public class H2PersistenceConfigurerTest {
+
+   public void testDefaults() {
+      Properties properties = new Properties();
+      new H2PersistenceConfigurer().configure(properties);
+      assertThat(properties.getProperty("hibernate.connection.url")).isEqualTo("jdbc:h2:file:./jclouds-db;MV_STORE=TRUE");
+      assertThat(properties.getProperty("hibernate.hbm2ddl.auto")).isEqualTo("create");
+   }
+
+   public void testStorages() {
+      H2PersistenceConfigurer configurer = new H2PersistenceConfigurer();
+      configurer.setDatabaseFile("./target/db");
+      configurer.setStorage("memory");
+      assertThat(configurer.databaseUrl()).isEqualTo("jdbc:h2:mem:./target/db;DB_CLOSE_DELAY=-1");
+      configurer.setStorage("mapped-file");
+      assertThat(configurer.databaseUrl()).isEqualTo("jdbc:h2:nioMapped:./target/db;MV_STORE=TRUE");
+      configurer.setDatabaseSettings("CACHE_SIZE=1024");
+      assertThat(configurer.databaseUrl()).isEqualTo("jdbc:h2:nioMapped:./target/db;MV_STORE=TRUE;CACHE_SIZE=1024");
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testUnknownStorage() {
+      H2PersistenceConfigurer configurer = new H2PersistenceConfigurer();
+      configurer.setStorage("tape");
+      configurer.databaseUrl();
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testUnknownSchema() {
+      new H2PersistenceConfigurer().setSchema("drop");
+   }
+
+}
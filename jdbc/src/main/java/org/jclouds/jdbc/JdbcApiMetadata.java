@@ -23,8 +23,20 @@ import org.jclouds.apis.ApiMetadata;
 import org.jclouds.apis.internal.BaseApiMetadata;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.jdbc.config.JdbcBlobStoreContextModule;
+import org.jclouds.jdbc.reference.JdbcConstants;
 
 import java.net.URI;
+import java.util.Properties;
+
+import static org.jclouds.jdbc.config.JdbcProperties.BLOB_CACHE_MAX_BLOB_SIZE;
+import static org.jclouds.jdbc.config.JdbcProperties.BLOB_CACHE_SIZE;
+import static org.jclouds.jdbc.config.JdbcProperties.CHUNK_SIZE;
+import static org.jclouds.jdbc.config.JdbcProperties.COMPRESSION;
+import static org.jclouds.jdbc.config.JdbcProperties.CONTAINER_CACHE_SIZE;
+import static org.jclouds.jdbc.config.JdbcProperties.DEDUPLICATION;
+import static org.jclouds.jdbc.config.JdbcProperties.PERSISTENCE_PROPERTIES;
+import static org.jclouds.jdbc.config.JdbcProperties.READ_AHEAD_CHUNKS;
+import static org.jclouds.jdbc.config.JdbcProperties.WRITE_BATCH_SIZE;
 
 /**
  * Implementation of {@link ApiMetadata} for jclouds Jdbc BlobStore
@@ -45,6 +57,20 @@ public class JdbcApiMetadata extends BaseApiMetadata {
       super(builder);
    }
 
+   public static Properties defaultProperties() {
+      Properties properties = BaseApiMetadata.defaultProperties();
+      properties.setProperty(READ_AHEAD_CHUNKS, String.valueOf(JdbcConstants.DEFAULT_READ_AHEAD_CHUNKS));
+      properties.setProperty(CHUNK_SIZE, String.valueOf(JdbcConstants.DEFAULT_CHUNK_SIZE));
+      properties.setProperty(WRITE_BATCH_SIZE, String.valueOf(JdbcConstants.DEFAULT_WRITE_BATCH_SIZE));
+      properties.setProperty(CONTAINER_CACHE_SIZE, String.valueOf(JdbcConstants.DEFAULT_CONTAINER_CACHE_SIZE));
+      properties.setProperty(BLOB_CACHE_SIZE, String.valueOf(JdbcConstants.DEFAULT_BLOB_CACHE_SIZE));
+      properties.setProperty(BLOB_CACHE_MAX_BLOB_SIZE, String.valueOf(JdbcConstants.DEFAULT_BLOB_CACHE_MAX_BLOB_SIZE));
+      properties.setProperty(DEDUPLICATION, String.valueOf(JdbcConstants.DEFAULT_DEDUPLICATION));
+      properties.setProperty(COMPRESSION, JdbcConstants.DEFAULT_COMPRESSION);
+      properties.setProperty(PERSISTENCE_PROPERTIES, "");
+      return properties;
+   }
+
    public static class Builder extends BaseApiMetadata.Builder<Builder> {
 
       protected Builder() {
@@ -56,6 +82,7 @@ public class JdbcApiMetadata extends BaseApiMetadata {
          .defaultIdentity("unused")
          .defaultCredential("unused")
          .version("1")
+         .defaultProperties(JdbcApiMetadata.defaultProperties())
          .documentation(URI.create("http://www.jclouds.org/documentation/userguide/blobstore-guide"))
          .view(BlobStoreContext.class)
          .defaultModules(ImmutableSet.<Class<? extends Module>>of(JdbcBlobStoreContextModule.class));
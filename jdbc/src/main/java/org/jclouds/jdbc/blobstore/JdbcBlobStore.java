@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.blobstore;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.blobstore.config.LocalBlobStore;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
+import org.jclouds.io.Payload;
+import org.jclouds.jdbc.strategy.JdbcStorageStrategy;
+
+import com.google.common.base.Throwables;
+
+import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
+
+/**
+ * Blob store of the jdbc provider. {@link LocalBlobStore} only knows the operations of the
+ * storage strategy interface, so it lists and counts blobs by loading every blob of the
+ * container, removes blobs one transaction at a time, reads whole blobs to return byte ranges,
+ * copies blobs by reading them, and stores multipart uploads as temporary blobs.
+ * This blob store sends those operations to {@link JdbcStorageStrategy} and forwards the
+ * others to the local blob store, which can not be extended.
+ */
+@Singleton
+public class JdbcBlobStore extends ForwardingBlobStore {
+
+   private final JdbcStorageStrategy storageStrategy;
+
+   @Inject
+   JdbcBlobStore(LocalBlobStore localBlobStore, JdbcStorageStrategy storageStrategy) {
+      super(localBlobStore);
+      this.storageStrategy = storageStrategy;
+   }
+
+   @Override
+   public PageSet<? extends StorageMetadata> list(String container) {
+      return list(container, ListContainerOptions.NONE);
+   }
+
+   @Override
+   public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+      checkContainerExists(container);
+      return storageStrategy.list(container, options);
+   }
+
+   @Override
+   public long countBlobs(String container) {
+      return countBlobs(container, recursive());
+   }
+
+   @Override
+   public long countBlobs(String container, ListContainerOptions options) {
+      return storageStrategy.countBlobs(container, options);
+   }
+
+   @Override
+   public Blob getBlob(String container, String name, GetOptions options) {
+      if (options.getRanges().isEmpty()) {
+         return super.getBlob(container, name, options);
+      }
+      // The local blob store checks the container, the blob and the conditions without reading
+      // the content, then only the chunks covered by the ranges are read
+      Blob blob = super.getBlob(container, name, withoutRanges(options));
+      return storageStrategy.restrictToRanges(blob, options.getRanges());
+   }
+
+   @Override
+   public void removeBlobs(String container, Iterable<String> names) {
+      storageStrategy.removeBlobs(container, names);
+   }
+
+   @Override
+   public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         CopyOptions options) {
+      checkContainerExists(fromContainer);
+      checkContainerExists(toContainer);
+      return storageStrategy.copyBlob(fromContainer, fromName, toContainer, toName, options);
+   }
+
+   @Override
+   public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blobMetadata, PutOptions options) {
+      checkContainerExists(container);
+      return storageStrategy.initiateMultipartUpload(container, blobMetadata, options);
+   }
+
+   @Override
+   public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+      try {
+         return storageStrategy.uploadMultipartPart(mpu, partNumber, payload);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   @Override
+   public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+      return storageStrategy.listMultipartUpload(mpu);
+   }
+
+   @Override
+   public List<MultipartUpload> listMultipartUploads(String container) {
+      checkContainerExists(container);
+      return storageStrategy.listMultipartUploads(container);
+   }
+
+   @Override
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+      return storageStrategy.completeMultipartUpload(mpu, parts);
+   }
+
+   @Override
+   public void abortMultipartUpload(MultipartUpload mpu) {
+      storageStrategy.abortMultipartUpload(mpu);
+   }
+
+   private static GetOptions withoutRanges(GetOptions options) {
+      GetOptions conditions = new GetOptions();
+      if (options.getIfMatch() != null) {
+         conditions.ifETagMatches(options.getIfMatch());
+      }
+      if (options.getIfNoneMatch() != null) {
+         conditions.ifETagDoesntMatch(options.getIfNoneMatch());
+      }
+      if (options.getIfModifiedSince() != null) {
+         conditions.ifModifiedSince(options.getIfModifiedSince());
+      }
+      if (options.getIfUnmodifiedSince() != null) {
+         conditions.ifUnmodifiedSince(options.getIfUnmodifiedSince());
+      }
+      return conditions;
+   }
+
+   private void checkContainerExists(String container) {
+      if (!storageStrategy.containerExists(container)) {
+         throw new ContainerNotFoundException(container, "while accessing the jdbc blob store");
+      }
+   }
+
+}
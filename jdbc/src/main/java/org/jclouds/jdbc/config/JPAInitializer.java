@@ -16,14 +16,96 @@
  */
 package org.jclouds.jdbc.config;
 
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.persist.PersistService;
 
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
 public class JPAInitializer {
 
+   private final PersistService persistService;
+
    @Inject
-   private JPAInitializer(PersistService persistService) {
+   private JPAInitializer(PersistService persistService, PersistenceSettings settings) {
+      this.persistService = persistService;
+      if (settings.unitProperties != null) {
+         if (settings.configurer != null) {
+            settings.configurer.configure(settings.unitProperties);
+         }
+         if (!settings.overrides.trim().isEmpty()) {
+            settings.unitProperties.putAll(parseOverrides(settings.overrides));
+         }
+      }
       persistService.start();
    }
 
+   /**
+    * Parses the {@link JdbcProperties#PERSISTENCE_PROPERTIES} setting. Entries are separated by
+    * commas and split on their first equals sign, so values may contain equals signs, such as
+    * JDBC URLs, and a backslash escapes the next character, so values may contain commas.
+    */
+   static Map<String, String> parseOverrides(String overrides) {
+      Map<String, String> properties = Maps.newLinkedHashMap();
+      StringBuilder key = new StringBuilder();
+      StringBuilder value = null;
+      for (int i = 0; i <= overrides.length(); i++) {
+         char c = i < overrides.length() ? overrides.charAt(i) : ',';
+         if (c == '\\' && i + 1 < overrides.length()) {
+            (value == null ? key : value).append(overrides.charAt(++i));
+         } else if (c == ',') {
+            addOverride(properties, key.toString().trim(), value);
+            key.setLength(0);
+            value = null;
+         } else if (c == '=' && value == null) {
+            value = new StringBuilder();
+         } else {
+            (value == null ? key : value).append(c);
+         }
+      }
+      return properties;
+   }
+
+   private static void addOverride(Map<String, String> properties, String key, StringBuilder value) {
+      if (key.isEmpty() && value == null) {
+         return;
+      }
+      checkArgument(!key.isEmpty() && value != null, "persistence property must be key=value: %s%s", key,
+            value == null ? "" : "=" + value);
+      properties.put(key, value.toString().trim());
+   }
+
+   /**
+    * Closes the persistence unit with the context, so a database file is released and can be
+    * opened again by another context.
+    */
+   @PreDestroy
+   public void stop() {
+      persistService.stop();
+   }
+
+   /**
+    * The persistence properties given by the configuration, which are optional when the
+    * blobstore is not built by a context builder.
+    */
+   static class PersistenceSettings {
+
+      @Inject(optional = true)
+      @Named(JdbcProperties.PERSISTENCE_PROPERTIES)
+      private String overrides = "";
+
+      @Inject(optional = true)
+      @PersistenceUnitProperties
+      private Properties unitProperties;
+
+      @Inject(optional = true)
+      private PersistenceConfigurer configurer;
+
+   }
+
 }
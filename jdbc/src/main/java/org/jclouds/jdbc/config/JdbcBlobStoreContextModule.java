@@ -23,17 +23,22 @@ import org.jclouds.blobstore.LocalBlobRequestSigner;
 import org.jclouds.blobstore.LocalStorageStrategy;
 import org.jclouds.blobstore.attr.ConsistencyModel;
 import org.jclouds.blobstore.config.BlobStoreObjectModule;
-import org.jclouds.blobstore.config.LocalBlobStore;
 import org.jclouds.blobstore.util.BlobUtils;
+import org.jclouds.jdbc.blobstore.JdbcBlobStore;
 import org.jclouds.jdbc.strategy.JdbcStorageStrategy;
 import org.jclouds.jdbc.util.JdbcBlobUtils;
 
+import java.util.Properties;
+
 public class JdbcBlobStoreContextModule extends AbstractModule {
 
+   private final Properties persistenceProperties = new Properties();
+
    @Override
    protected void configure() {
+      bind(Properties.class).annotatedWith(PersistenceUnitProperties.class).toInstance(persistenceProperties);
       bind(JPAInitializer.class).asEagerSingleton();
-      bind(BlobStore.class).to(LocalBlobStore.class);
+      bind(BlobStore.class).to(JdbcBlobStore.class);
       install(new BlobStoreObjectModule());
       bind(ConsistencyModel.class).toInstance(ConsistencyModel.STRICT);
       bind(LocalStorageStrategy.class).to(JdbcStorageStrategy.class);
@@ -41,4 +46,13 @@ public class JdbcBlobStoreContextModule extends AbstractModule {
       bind(BlobRequestSigner.class).to(LocalBlobRequestSigner.class);
    }
 
+   /**
+    * Returns the properties subclasses should give to the persistence unit they install. The
+    * {@link JdbcProperties#PERSISTENCE_PROPERTIES} setting is merged into them before the
+    * persistence unit is started.
+    */
+   protected Properties persistenceProperties() {
+      return persistenceProperties;
+   }
+
 }
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.config;
+
+/**
+ * Configuration properties for the jdbc blobstore
+ */
+public final class JdbcProperties {
+
+   /**
+    * Number of chunks fetched with a single query while a blob payload is being read.
+    * <p>
+    * Default value: 4.
+    */
+   public static final String READ_AHEAD_CHUNKS = "jclouds.jdbc.read-ahead-chunks";
+
+   /**
+    * Size in bytes of the chunks blob payloads are split into. It can not exceed
+    * {@link org.jclouds.jdbc.reference.JdbcConstants#MAX_CHUNK_SIZE}.
+    * <p>
+    * Default value: 1 MB.
+    */
+   public static final String CHUNK_SIZE = "jclouds.jdbc.chunk-size";
+
+   /**
+    * Number of chunks written to the database before they are flushed as a batch and
+    * released from the persistence context. Together with the chunk size it bounds the heap
+    * used by a single upload.
+    * <p>
+    * Default value: 8.
+    */
+   public static final String WRITE_BATCH_SIZE = "jclouds.jdbc.write-batch-size";
+
+   /**
+    * Maximum number of containers whose id and access are kept in memory, so blob operations
+    * do not have to look their container up by name.
+    * <p>
+    * Default value: 1000.
+    */
+   public static final String CONTAINER_CACHE_SIZE = "jclouds.jdbc.container-cache-size";
+
+   /**
+    * Maximum size in bytes of the blob contents kept in memory, so reading a small blob again
+    * only queries its metadata. The contents are held in direct buffers, which count against
+    * {@code -XX:MaxDirectMemorySize} rather than the heap. 0 disables the cache.
+    * <p>
+    * Default value: 0.
+    */
+   public static final String BLOB_CACHE_SIZE = "jclouds.jdbc.blob-cache-size";
+
+   /**
+    * Size in bytes above which blob contents are not cached.
+    * <p>
+    * Default value: 64 KB.
+    */
+   public static final String BLOB_CACHE_MAX_BLOB_SIZE = "jclouds.jdbc.blob-cache-max-blob-size";
+
+   /**
+    * Whether chunks are shared between payloads. Chunks are then keyed by their SHA-256
+    * hash, and an upload only writes the chunks that are not already stored.
+    * <p>
+    * Default value: false.
+    */
+   public static final String DEDUPLICATION = "jclouds.jdbc.deduplication";
+
+   /**
+    * Codec applied to the chunks when they are written, either {@code none} or {@code deflate}.
+    * Chunks that do not get smaller are stored as is. Chunks written with any codec can be read
+    * whatever the current setting.
+    * <p>
+    * Default value: none.
+    */
+   public static final String COMPRESSION = "jclouds.jdbc.compression";
+
+   /**
+    * Properties of the persistence unit overriding the ones of its {@code persistence.xml}, as
+    * comma separated {@code key=value} pairs, for instance
+    * {@code hibernate.hikari.maximumPoolSize=32,hibernate.jdbc.fetch_size=256}. Each pair is
+    * split on its first {@code =}, so values may contain {@code =}, and a backslash escapes the
+    * next character, so {@code \,} stands for a comma inside a value. They apply to
+    * the persistence units installed with
+    * {@link JdbcBlobStoreContextModule#persistenceProperties()}, as the h2 provider does.
+    * <p>
+    * Default value: empty.
+    */
+   public static final String PERSISTENCE_PROPERTIES = "jclouds.jdbc.persistence-properties";
+
+   private JdbcProperties() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.conversion;
+
+import com.google.common.base.Function;
+import com.google.common.hash.HashCode;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.jdbc.config.JdbcProperties;
+import org.jclouds.jdbc.entity.BlobMetadataProjection;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.util.JdbcByteSource;
+
+import javax.inject.Named;
+
+/**
+ * Builds a blob from its metadata. The payload reads the chunks lazily, when it is opened.
+ */
+public class BlobMetadataProjectionToBlob implements Function<BlobMetadataProjection, Blob> {
+
+   private final Provider<BlobBuilder> blobBuilders;
+   private final JdbcService jdbcService;
+
+   @Inject(optional = true)
+   @Named(JdbcProperties.READ_AHEAD_CHUNKS)
+   private int readAheadChunks = JdbcConstants.DEFAULT_READ_AHEAD_CHUNKS;
+
+   @Inject
+   BlobMetadataProjectionToBlob(Provider<BlobBuilder> blobBuilders, JdbcService jdbcService) {
+      this.blobBuilders = blobBuilders;
+      this.jdbcService = jdbcService;
+   }
+
+   @Override
+   public Blob apply(BlobMetadataProjection metadata) {
+      if (metadata == null) {
+         return null;
+      }
+
+      BlobBuilder builder = blobBuilders.get()
+            .name(metadata.getKey())
+            .userMetadata(metadata.getUserMetadata());
+
+      if (metadata.isDirectory()) {
+         builder.type(StorageType.FOLDER);
+      }
+      else {
+         builder.payload(new JdbcByteSource(jdbcService, metadata.getPayloadId(), metadata.getContentLength(),
+               readAheadChunks));
+      }
+
+      Blob blob = builder.build();
+
+      blob.getMetadata().setContainer(metadata.getContainerName());
+      blob.getMetadata().setCreationDate(metadata.getCreationDate());
+      blob.getMetadata().setLastModified(metadata.getLastModified());
+      blob.getMetadata().setSize(metadata.getSize());
+      blob.getMetadata().setUserMetadata(metadata.getUserMetadata());
+
+      blob.getMetadata().getContentMetadata().setContentType(metadata.getContentType());
+      blob.getMetadata().getContentMetadata().setContentDisposition(metadata.getContentDisposition());
+      blob.getMetadata().getContentMetadata().setContentEncoding(metadata.getContentEncoding());
+      blob.getMetadata().getContentMetadata().setContentLanguage(metadata.getContentLanguage());
+      blob.getMetadata().getContentMetadata().setContentLength(metadata.getContentLength());
+      blob.getMetadata().getContentMetadata().setContentMD5(metadata.getContentMD5() == null ?
+            null :
+            HashCode.fromBytes(metadata.getContentMD5()));
+      blob.getMetadata().setETag(metadata.getEtag());
+      blob.getMetadata().getContentMetadata().setExpires(metadata.getExpires());
+      return blob;
+   }
+
+}
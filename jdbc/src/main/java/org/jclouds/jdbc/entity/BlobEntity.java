@@ -19,6 +19,8 @@ package org.jclouds.jdbc.entity;
 import org.jclouds.blobstore.domain.BlobAccess;
 
 import javax.persistence.CascadeType;
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -26,9 +28,11 @@ import javax.persistence.Id;
 import javax.persistence.IdClass;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.MapKeyColumn;
 import javax.persistence.OneToOne;
 import javax.persistence.PrePersist;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.util.Date;
 import java.util.Map;
 
@@ -43,12 +47,19 @@ public class BlobEntity {
    private ContainerEntity containerEntity;
 
    @Id
+   @Column(name = "blob_key")
    private String key;
 
-   @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+   @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+   @JoinColumn(name = "payload_id")
    private PayloadEntity payload;
 
-   @ElementCollection(fetch = FetchType.EAGER)
+   @ElementCollection(fetch = FetchType.LAZY)
+   @CollectionTable(name = "BlobEntity_userMetadata", joinColumns = {
+         @JoinColumn(name = "container_id", referencedColumnName = "id"),
+         @JoinColumn(name = "blob_key", referencedColumnName = "blob_key") })
+   @MapKeyColumn(name = "metadata_key")
+   @Column(name = "metadata_value")
    public Map<String, String> userMetadata;
 
    private Date creationDate;
@@ -58,6 +69,12 @@ public class BlobEntity {
    private String etag;
    private boolean directory;
 
+   /**
+    * Makes concurrent modifications of a blob fail instead of overwriting each other.
+    */
+   @Version
+   private long version;
+
    @PrePersist
    private void defaults() {
       this.lastModified = new Date();
@@ -166,6 +183,10 @@ public class BlobEntity {
       this.etag = etag;
    }
 
+   public long getVersion() {
+      return version;
+   }
+
    public static Builder builder(ContainerEntity containerEntity, String key) {
       return new Builder(containerEntity, key);
    }
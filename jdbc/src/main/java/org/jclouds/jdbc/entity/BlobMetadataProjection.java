@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.entity;
+
+import org.jclouds.blobstore.domain.BlobAccess;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Read-only view of the metadata of a blob, loaded with a single query joining the blob to
+ * its container and payload. It never loads the chunk list of the payload.
+ */
+public class BlobMetadataProjection {
+
+   private final String containerName;
+   private final String key;
+   private final Long payloadId;
+   private final String etag;
+   private final Long size;
+   private final Date creationDate;
+   private final Date lastModified;
+   private final BlobAccess blobAccess;
+   private final boolean directory;
+   private final String contentType;
+   private final Long contentLength;
+   private final byte[] contentMD5;
+   private final String contentDisposition;
+   private final String contentLanguage;
+   private final String contentEncoding;
+   private final Date expires;
+   private Map<String, String> userMetadata;
+
+   public BlobMetadataProjection(String containerName, String key, Long payloadId, String etag, Long size,
+         Date creationDate, Date lastModified, BlobAccess blobAccess, Boolean directory, String contentType,
+         Long contentLength, byte[] contentMD5, String contentDisposition, String contentLanguage,
+         String contentEncoding, Date expires) {
+      this.containerName = containerName;
+      this.key = key;
+      this.payloadId = payloadId;
+      this.etag = etag;
+      this.size = size;
+      this.creationDate = creationDate;
+      this.lastModified = lastModified;
+      this.blobAccess = blobAccess;
+      this.directory = directory != null && directory;
+      this.contentType = contentType;
+      this.contentLength = contentLength;
+      this.contentMD5 = contentMD5;
+      this.contentDisposition = contentDisposition;
+      this.contentLanguage = contentLanguage;
+      this.contentEncoding = contentEncoding;
+      this.expires = expires;
+   }
+
+   public String getContainerName() {
+      return containerName;
+   }
+
+   public String getKey() {
+      return key;
+   }
+
+   public Long getPayloadId() {
+      return payloadId;
+   }
+
+   public String getEtag() {
+      return etag;
+   }
+
+   public Long getSize() {
+      return size;
+   }
+
+   public Date getCreationDate() {
+      return creationDate;
+   }
+
+   public Date getLastModified() {
+      return lastModified;
+   }
+
+   public BlobAccess getBlobAccess() {
+      return blobAccess;
+   }
+
+   public boolean isDirectory() {
+      return directory;
+   }
+
+   public String getContentType() {
+      return contentType;
+   }
+
+   public Long getContentLength() {
+      return contentLength;
+   }
+
+   public byte[] getContentMD5() {
+      return contentMD5;
+   }
+
+   public String getContentDisposition() {
+      return contentDisposition;
+   }
+
+   public String getContentLanguage() {
+      return contentLanguage;
+   }
+
+   public String getContentEncoding() {
+      return contentEncoding;
+   }
+
+   public Date getExpires() {
+      return expires;
+   }
+
+   /**
+    * Returns the user metadata, or null if it was not loaded with the projection.
+    */
+   public Map<String, String> getUserMetadata() {
+      return userMetadata;
+   }
+
+   public void setUserMetadata(Map<String, String> userMetadata) {
+      this.userMetadata = userMetadata;
+   }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.entity;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encoding of the data of a chunk. The size of a chunk is always the size of its decoded data.
+ */
+public enum ChunkCodec {
+
+   NONE {
+      @Override
+      public byte[] encode(byte[] data, int size) {
+         return null;
+      }
+
+      @Override
+      public byte[] decode(byte[] stored, int size) {
+         return stored;
+      }
+   },
+
+   DEFLATE {
+      @Override
+      public byte[] encode(byte[] data, int size) {
+         Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+         try {
+            deflater.setInput(data, 0, size);
+            deflater.finish();
+            // Output that does not fit in the size of the input is not worth keeping
+            byte[] buffer = new byte[size];
+            int length = 0;
+            while (!deflater.finished() && length < size) {
+               length += deflater.deflate(buffer, length, size - length);
+            }
+            return deflater.finished() && length < size ? Arrays.copyOf(buffer, length) : null;
+         } finally {
+            deflater.end();
+         }
+      }
+
+      @Override
+      public byte[] decode(byte[] stored, int size) throws IOException {
+         Inflater inflater = new Inflater();
+         try {
+            inflater.setInput(stored);
+            byte[] data = new byte[size];
+            int length = 0;
+            while (length < size && !inflater.finished()) {
+               int count = inflater.inflate(data, length, size - length);
+               if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                  break;
+               }
+               length += count;
+            }
+            if (length != size) {
+               throw new IOException("Corrupted chunk: expected " + size + " bytes but inflated " + length);
+            }
+            return data;
+         } catch (DataFormatException e) {
+            throw new IOException("Corrupted chunk", e);
+         } finally {
+            inflater.end();
+         }
+      }
+   };
+
+   /**
+    * Encodes the first {@code size} bytes of data.
+    *
+    * @return the encoded data, or null if encoding does not make it smaller
+    */
+   public abstract byte[] encode(byte[] data, int size);
+
+   /**
+    * Decodes stored data.
+    *
+    * @param size the size of the decoded data
+    */
+   public abstract byte[] decode(byte[] stored, int size) throws IOException;
+
+}
@@ -23,11 +23,13 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.Table;
+import java.io.IOException;
 
 @Entity
-@Table
+@Table(indexes = @Index(name = "chunk_content_hash", columnList = "content_hash"))
 public class ChunkEntity {
 
    @Id
@@ -35,14 +37,48 @@ public class ChunkEntity {
    private Long id;
 
    @Lob
-   @Column(length = JdbcConstants.DEFAULT_CHUNK_SIZE)
+   @Column(length = JdbcConstants.MAX_CHUNK_SIZE)
    private byte[] data;
 
+   /**
+    * Size of the data once decoded.
+    */
    private int size;
 
+   /**
+    * Size of the data as stored in the database.
+    */
+   @Column(name = "stored_size")
+   private int storedSize;
+
+   private ChunkCodec codec = ChunkCodec.NONE;
+
+   /**
+    * Hash of the data, only set for chunks that can be shared between payloads.
+    */
+   @Column(name = "content_hash", length = 64)
+   private String hash;
+
+   /**
+    * Number of times the chunk appears in payload chunk lists.
+    */
+   @Column(name = "ref_count")
+   private int refCount = 1;
+
    public ChunkEntity(byte[] data, int size) {
+      this(data, size, null);
+   }
+
+   public ChunkEntity(byte[] data, int size, String hash) {
+      this(data, size, hash, ChunkCodec.NONE);
+   }
+
+   public ChunkEntity(byte[] data, int size, String hash, ChunkCodec codec) {
       this.data = data;
       this.size = size;
+      this.storedSize = data.length;
+      this.hash = hash;
+      this.codec = codec;
    }
 
    public ChunkEntity() {
@@ -71,4 +107,43 @@ public class ChunkEntity {
    public void setSize(int size) {
       this.size = size;
    }
+
+   public int getStoredSize() {
+      return storedSize;
+   }
+
+   public void setStoredSize(int storedSize) {
+      this.storedSize = storedSize;
+   }
+
+   public ChunkCodec getCodec() {
+      return codec;
+   }
+
+   public void setCodec(ChunkCodec codec) {
+      this.codec = codec;
+   }
+
+   /**
+    * Returns the decoded data of the chunk.
+    */
+   public byte[] decodeData() throws IOException {
+      return codec == null ? data : codec.decode(data, size);
+   }
+
+   public String getHash() {
+      return hash;
+   }
+
+   public void setHash(String hash) {
+      this.hash = hash;
+   }
+
+   public int getRefCount() {
+      return refCount;
+   }
+
+   public void setRefCount(int refCount) {
+      this.refCount = refCount;
+   }
 }
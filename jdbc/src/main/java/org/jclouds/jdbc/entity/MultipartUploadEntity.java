@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.entity;
+
+import org.jclouds.blobstore.domain.BlobAccess;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.MapKeyColumn;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * A multipart upload in progress. It holds the metadata of the blob it will create.
+ */
+@Entity
+@Table
+public class MultipartUploadEntity {
+
+   @Id
+   private String id;
+
+   @ManyToOne
+   @JoinColumn(name = "container_id")
+   private ContainerEntity containerEntity;
+
+   @Column(name = "blob_key")
+   private String key;
+
+   @ElementCollection(fetch = FetchType.LAZY)
+   @CollectionTable(name = "MultipartUploadEntity_userMetadata", joinColumns = @JoinColumn(name = "upload_id"))
+   @MapKeyColumn(name = "metadata_key")
+   @Column(name = "metadata_value")
+   private Map<String, String> userMetadata;
+
+   private Date creationDate;
+   private BlobAccess blobAccess;
+   private String contentType;
+   private String contentDisposition;
+   private String contentLanguage;
+   private String contentEncoding;
+   private Date expires;
+
+   @PrePersist
+   private void defaults() {
+      this.creationDate = new Date();
+      if (blobAccess == null) {
+         this.blobAccess = BlobAccess.PRIVATE;
+      }
+   }
+
+   public MultipartUploadEntity() {
+   }
+
+   public String getId() {
+      return id;
+   }
+
+   public void setId(String id) {
+      this.id = id;
+   }
+
+   public ContainerEntity getContainerEntity() {
+      return containerEntity;
+   }
+
+   public void setContainerEntity(ContainerEntity containerEntity) {
+      this.containerEntity = containerEntity;
+   }
+
+   public String getKey() {
+      return key;
+   }
+
+   public void setKey(String key) {
+      this.key = key;
+   }
+
+   public Map<String, String> getUserMetadata() {
+      return userMetadata;
+   }
+
+   public void setUserMetadata(Map<String, String> userMetadata) {
+      this.userMetadata = userMetadata;
+   }
+
+   public Date getCreationDate() {
+      return creationDate;
+   }
+
+   public void setCreationDate(Date creationDate) {
+      this.creationDate = creationDate;
+   }
+
+   public BlobAccess getBlobAccess() {
+      return blobAccess;
+   }
+
+   public void setBlobAccess(BlobAccess blobAccess) {
+      this.blobAccess = blobAccess;
+   }
+
+   public String getContentType() {
+      return contentType;
+   }
+
+   public void setContentType(String contentType) {
+      this.contentType = contentType;
+   }
+
+   public String getContentDisposition() {
+      return contentDisposition;
+   }
+
+   public void setContentDisposition(String contentDisposition) {
+      this.contentDisposition = contentDisposition;
+   }
+
+   public String getContentLanguage() {
+      return contentLanguage;
+   }
+
+   public void setContentLanguage(String contentLanguage) {
+      this.contentLanguage = contentLanguage;
+   }
+
+   public String getContentEncoding() {
+      return contentEncoding;
+   }
+
+   public void setContentEncoding(String contentEncoding) {
+      this.contentEncoding = contentEncoding;
+   }
+
+   public Date getExpires() {
+      return expires;
+   }
+
+   public void setExpires(Date expires) {
+      this.expires = expires;
+   }
+
+}
@@ -18,12 +18,16 @@ package org.jclouds.jdbc.entity;
 
 import com.google.common.collect.ImmutableList;
 
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.OrderColumn;
 import java.util.Date;
 import java.util.List;
 
@@ -34,7 +38,10 @@ public class PayloadEntity {
    @GeneratedValue(strategy = GenerationType.SEQUENCE)
    private Long id;
 
-   @ElementCollection(fetch = FetchType.EAGER)
+   @ElementCollection(fetch = FetchType.LAZY)
+   @CollectionTable(name = "PayloadEntity_chunks", joinColumns = @JoinColumn(name = "payload_id"))
+   @Column(name = "chunk_id")
+   @OrderColumn(name = "chunk_index")
    private List<Long> chunks;
 
    private String contentType;
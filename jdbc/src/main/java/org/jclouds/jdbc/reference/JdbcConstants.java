@@ -23,6 +23,24 @@ public final class JdbcConstants {
 
     public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
 
+    public static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 8;
+
+    public static final int DEFAULT_READ_AHEAD_CHUNKS = 4;
+
+    public static final int DEFAULT_CONTAINER_CACHE_SIZE = 1000;
+
+    public static final long DEFAULT_BLOB_CACHE_SIZE = 0;
+
+    public static final int DEFAULT_BLOB_CACHE_MAX_BLOB_SIZE = 64 * 1024;
+
+    public static final boolean DEFAULT_DEDUPLICATION = false;
+
+    public static final String DEFAULT_COMPRESSION = "none";
+
+    public static final int KEY_PAGE_SIZE = 1000;
+
     private JdbcConstants() {
         throw new AssertionError("Intentionally Unimplemented");
     }
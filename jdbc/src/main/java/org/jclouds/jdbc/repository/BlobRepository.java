@@ -16,22 +16,39 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
+import org.jclouds.jdbc.entity.BlobMetadataProjection;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.util.BlobKeys;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK> {
 
+   private static final int MAX_KEYS_PER_QUERY = 500;
+
+   private final ChunkRepository chunkRepository;
+
    @Inject
-   private BlobRepository(Provider<EntityManager> entityManager) {
+   private BlobRepository(Provider<EntityManager> entityManager, ChunkRepository chunkRepository) {
       super(entityManager);
+      this.chunkRepository = chunkRepository;
    }
 
     public List<BlobEntity> findBlobsByContainer(ContainerEntity containerEntity) {
@@ -42,13 +59,208 @@ public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK>
                 .getResultList();
     }
 
-   public List<BlobEntity> findBlobsByDirectory(ContainerEntity containerEntity, String directory) {
-      return entityManager.get().createQuery("SELECT b FROM " + entityClass.getName() + " b "
-            + "WHERE b.containerEntity = :containerEntity AND b.key != :directoryName AND b.key LIKE :directoryLike ", entityClass)
-            .setParameter("containerEntity", containerEntity)
-            .setParameter("directoryName", directory)
-            .setParameter("directoryLike", directory + "%")
+   /**
+    * Loads the metadata of a blob with a single query, without its user metadata nor the
+    * chunk list of its payload.
+    */
+   public BlobMetadataProjection findBlobMetadata(Long containerId, String key) {
+      List<BlobMetadataProjection> blobs = entityManager.get().createQuery(selectBlobMetadata()
+            + "WHERE c.id = :containerId AND b.key = :key", BlobMetadataProjection.class)
+            .setParameter("containerId", containerId)
+            .setParameter("key", key)
             .getResultList();
+      return blobs.isEmpty() ? null : blobs.get(0);
+   }
+
+   /**
+    * Loads the metadata of several blobs with one query per {@value #MAX_KEYS_PER_QUERY} keys,
+    * without their user metadata. Keys without a blob are ignored.
+    */
+   public List<BlobMetadataProjection> findBlobMetadata(Long containerId, Collection<String> keys) {
+      ImmutableList.Builder<BlobMetadataProjection> blobs = ImmutableList.builder();
+      for (List<String> batch : Iterables.partition(keys, MAX_KEYS_PER_QUERY)) {
+         blobs.addAll(entityManager.get().createQuery(selectBlobMetadata()
+               + "WHERE c.id = :containerId AND b.key IN :keys", BlobMetadataProjection.class)
+               .setParameter("containerId", containerId)
+               .setParameter("keys", batch)
+               .getResultList());
+      }
+      return blobs.build();
+   }
+
+   private String selectBlobMetadata() {
+      return "SELECT NEW " + BlobMetadataProjection.class.getName() + "(c.name, b.key, p.id, b.etag, b.size,"
+            + " b.creationDate, b.lastModified, b.blobAccess, b.directory, p.contentType, p.contentLength,"
+            + " p.contentMD5, p.contentDisposition, p.contentLanguage, p.contentEncoding, p.expires) "
+            + "FROM " + entityClass.getName() + " b JOIN b.containerEntity c LEFT JOIN b.payload p ";
+   }
+
+   public Map<String, String> findUserMetadata(Long containerId, String key) {
+      List<Object[]> entries = entityManager.get().createQuery("SELECT KEY(m), m FROM " + entityClass.getName() + " b "
+            + "JOIN b.userMetadata m "
+            + "WHERE b.containerEntity.id = :containerId AND b.key = :key", Object[].class)
+            .setParameter("containerId", containerId)
+            .setParameter("key", key)
+            .getResultList();
+      Map<String, String> userMetadata = Maps.newLinkedHashMap();
+      for (Object[] entry : entries) {
+         userMetadata.put((String) entry[0], (String) entry[1]);
+      }
+      return userMetadata;
+   }
+
+   public boolean blobExists(Long containerId, String key) {
+      return entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity.id = :containerId AND b.key = :key", Long.class)
+            .setParameter("containerId", containerId)
+            .setParameter("key", key)
+            .getSingleResult() > 0;
+   }
+
+   public int deleteBlobsByContainer(ContainerEntity containerEntity) {
+      return deleteBlobs("%1$s.id = ?1", containerEntity.getId());
+   }
+
+   /**
+    * Deletes the blobs of a container with the given keys, with a fixed number of statements
+    * per {@value #MAX_KEYS_PER_QUERY} keys.
+    *
+    * @return the keys of the blobs that existed and were deleted
+    */
+   public List<String> deleteBlobsByKeys(ContainerEntity containerEntity, Collection<String> keys) {
+      ImmutableList.Builder<String> deleted = ImmutableList.builder();
+      for (List<String> batch : Iterables.partition(keys, MAX_KEYS_PER_QUERY)) {
+         List<String> existing = entityManager.get().createQuery("SELECT b.key FROM " + entityClass.getName() + " b "
+               + "WHERE b.containerEntity = :containerEntity AND b.key IN :keys", String.class)
+               .setParameter("containerEntity", containerEntity)
+               .setParameter("keys", batch)
+               .getResultList();
+         if (existing.isEmpty()) {
+            continue;
+         }
+         List<Object> parameters = Lists.newArrayList();
+         parameters.add(containerEntity.getId());
+         parameters.addAll(existing);
+         deleteBlobs("%1$s.id = ?1 AND %1$s.blob_key IN (" + placeholders(2, existing.size()) + ")",
+               parameters.toArray());
+         deleted.addAll(existing);
+      }
+      return deleted.build();
+   }
+
+   /**
+    * Lists the keys of a container in key order, without loading the blobs.
+    *
+    * @param prefix only return keys starting with this prefix, if not null
+    * @param marker only return keys after this one, if not null
+    * @param maxResults maximum number of keys to return, if not null
+    */
+   public List<String> findBlobKeys(ContainerEntity containerEntity, @Nullable String prefix, @Nullable String marker,
+         @Nullable Integer maxResults) {
+      String range = Strings.nullToEmpty(prefix);
+      TypedQuery<String> query = entityManager.get().createQuery("SELECT b.key FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity" + keyRange(range)
+            + (marker == null ? "" : " AND b.key > :marker")
+            + " ORDER BY b.key", String.class)
+            .setParameter("containerEntity", containerEntity);
+      bindKeyRange(query, range, true);
+      if (marker != null) {
+         query.setParameter("marker", marker);
+      }
+      if (maxResults != null) {
+         query.setMaxResults(maxResults);
+      }
+      return query.getResultList();
+   }
+
+   /**
+    * Counts the blobs whose key starts with a prefix, except the one named by the prefix.
+    * Unless the count is recursive, keys with a path separator after the prefix are not
+    * counted.
+    */
+   public long countBlobs(ContainerEntity containerEntity, String prefix, boolean recursive) {
+      TypedQuery<Long> query = entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity AND b.key <> :prefix" + keyRange(prefix)
+            + (recursive ? "" : " AND b.key NOT LIKE :nested ESCAPE '!'"), Long.class)
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("prefix", prefix);
+      bindKeyRange(query, prefix, recursive);
+      return query.getSingleResult();
+   }
+
+   /**
+    * Restricts a query to the keys starting with a prefix. The key range lets the database
+    * seek the primary key index, while the pattern keeps the match exact whatever the
+    * collation of the key column.
+    */
+   private static String keyRange(String prefix) {
+      if (prefix.isEmpty()) {
+         return "";
+      }
+      return " AND b.key >= :lowerBound"
+            + (BlobKeys.prefixUpperBound(prefix) == null ? "" : " AND b.key < :upperBound")
+            + " AND b.key LIKE :pattern ESCAPE '!'";
+   }
+
+   private static void bindKeyRange(Query query, String prefix, boolean recursive) {
+      String pattern = escapeLike(prefix) + "%";
+      if (!prefix.isEmpty()) {
+         query.setParameter("lowerBound", prefix);
+         String upperBound = BlobKeys.prefixUpperBound(prefix);
+         if (upperBound != null) {
+            query.setParameter("upperBound", upperBound);
+         }
+         query.setParameter("pattern", pattern);
+      }
+      if (!recursive) {
+         query.setParameter("nested", pattern + BlobKeys.SEPARATOR + "%");
+      }
+   }
+
+   /**
+    * Deletes the blobs whose key starts with a prefix, except the one named by the prefix.
+    * Unless the delete is recursive, only the non directory blobs without a path separator
+    * after the prefix are removed.
+    */
+   public int deleteBlobsByPrefix(ContainerEntity containerEntity, String prefix, boolean recursive) {
+      String pattern = escapeLike(prefix) + "%";
+      if (recursive) {
+         return deleteBlobs("%1$s.id = ?1 AND %1$s.blob_key LIKE ?2 ESCAPE '!' AND %1$s.blob_key <> ?3",
+               containerEntity.getId(), pattern, prefix);
+      }
+      return deleteBlobs("%1$s.id = ?1 AND %1$s.blob_key LIKE ?2 ESCAPE '!' AND %1$s.blob_key <> ?3"
+                  + " AND %1$s.blob_key NOT LIKE ?4 ESCAPE '!' AND %1$s.directory = ?5",
+            containerEntity.getId(), pattern, prefix, pattern + BlobKeys.SEPARATOR + "%", false);
+   }
+
+   /**
+    * Deletes the blobs matching a condition on the blob table, with their payloads, with a
+    * fixed number of statements per {@value #MAX_KEYS_PER_QUERY} payloads.
+    *
+    * @param scope SQL condition selecting the blobs, where {@code %1$s} stands for the blob table
+    * @param parameters positional parameters of the condition
+    * @return the number of blobs deleted
+    */
+   private int deleteBlobs(String scope, Object... parameters) {
+      // The payloads are collected first, since only the blobs tell which payloads they own
+      List<Long> payloadIds = findNativeIds("SELECT b.payload_id FROM BlobEntity b WHERE "
+            + String.format(scope, "b") + " AND b.payload_id IS NOT NULL", parameters);
+      chunkRepository.releasePayloadChunks(payloadIds);
+      for (List<Long> batch : Iterables.partition(payloadIds, MAX_KEYS_PER_QUERY)) {
+         executeNativeUpdate("DELETE FROM PayloadEntity_chunks WHERE payload_id IN ("
+               + placeholders(1, batch.size()) + ")", batch.toArray());
+      }
+      executeNativeUpdate("DELETE FROM BlobEntity_userMetadata WHERE EXISTS (SELECT 1 FROM BlobEntity b"
+            + " WHERE b.id = BlobEntity_userMetadata.container_id AND b.blob_key = BlobEntity_userMetadata.blob_key"
+            + " AND " + String.format(scope, "b") + ")", parameters);
+      int deleted = executeNativeUpdate("DELETE FROM BlobEntity WHERE " + String.format(scope, "BlobEntity"),
+            parameters);
+      // Payloads are referenced by the blobs, so they can only be removed once the blobs are gone
+      for (List<Long> batch : Iterables.partition(payloadIds, MAX_KEYS_PER_QUERY)) {
+         executeNativeUpdate("DELETE FROM PayloadEntity WHERE id IN (" + placeholders(1, batch.size()) + ")",
+               batch.toArray());
+      }
+      return deleted;
    }
 
 }
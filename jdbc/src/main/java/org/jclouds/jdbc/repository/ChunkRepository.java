@@ -16,19 +16,207 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import org.jclouds.jdbc.entity.ChunkEntity;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class ChunkRepository extends GenericRepository<ChunkEntity, Long> {
 
+   private static final int MAX_IDS_PER_QUERY = 1000;
+
    @Inject
    private ChunkRepository(Provider<EntityManager> entityManager) {
       super(entityManager);
    }
 
+   public List<ChunkEntity> findChunksByIds(Collection<Long> ids) {
+      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " c WHERE c.id IN :ids", entityClass)
+            .setParameter("ids", ids)
+            .getResultList();
+   }
+
+   /**
+    * Lists the chunk ids of a payload with their decoded sizes, in content order.
+    *
+    * @return rows holding the id and the size of a chunk
+    */
+   @SuppressWarnings("unchecked")
+   public List<Object[]> findChunkSizesByPayload(Long payloadId) {
+      return entityManager.get().createNativeQuery("SELECT pc.chunk_id, c.size FROM PayloadEntity_chunks pc"
+            + " JOIN ChunkEntity c ON c.id = pc.chunk_id WHERE pc.payload_id = ?1 ORDER BY pc.chunk_index")
+            .setParameter(1, payloadId)
+            .getResultList();
+   }
+
+   /**
+    * Takes a new reference on a stored chunk with the given content.
+    *
+    * @return the id of the chunk, or null if there is no such chunk
+    */
+   public Long acquireChunk(String hash, int size) {
+      List<Long> ids = entityManager.get().createQuery("SELECT c.id FROM " + entityClass.getName() + " c "
+            + "WHERE c.hash = :hash AND c.size = :size", Long.class)
+            .setParameter("hash", hash)
+            .setParameter("size", size)
+            .setMaxResults(1)
+            .getResultList();
+      if (ids.isEmpty()) {
+         return null;
+      }
+      // A chunk whose count dropped to zero is being deleted and can not be revived
+      int updated = entityManager.get().createQuery("UPDATE " + entityClass.getName() + " c "
+            + "SET c.refCount = c.refCount + 1 WHERE c.id = :id AND c.refCount > 0")
+            .setParameter("id", ids.get(0))
+            .executeUpdate();
+      return updated == 0 ? null : ids.get(0);
+   }
+
+   /**
+    * Gives a payload the chunk list of another one with two statements. The chunks are shared
+    * by taking a reference on each of them, so their data is neither read nor copied.
+    *
+    * @return the number of chunks in the list
+    */
+   public int shareChunks(Long sourcePayloadId, Long targetPayloadId) {
+      executeNativeUpdate("UPDATE ChunkEntity SET ref_count = ref_count + (SELECT COUNT(*) FROM PayloadEntity_chunks pc"
+            + " WHERE pc.chunk_id = ChunkEntity.id AND pc.payload_id = ?1)"
+            + " WHERE id IN (SELECT pc.chunk_id FROM PayloadEntity_chunks pc WHERE pc.payload_id = ?1)",
+            sourcePayloadId);
+      return executeNativeUpdate("INSERT INTO PayloadEntity_chunks (payload_id, chunk_id, chunk_index)"
+            + " SELECT CAST(?2 AS BIGINT), pc.chunk_id, pc.chunk_index FROM PayloadEntity_chunks pc"
+            + " WHERE pc.payload_id = ?1", sourcePayloadId, targetPayloadId);
+   }
+
+   /**
+    * Drops one reference per occurrence of an id in a list of chunks, and deletes the chunks
+    * left without references. It takes one pair of statements per distinct occurrence count,
+    * usually a single one.
+    */
+   public void releaseChunkIds(List<Long> ids) {
+      Multimap<Integer, Long> idsByCount = HashMultimap.create();
+      for (Multiset.Entry<Long> entry : HashMultiset.create(ids).entrySet()) {
+         idsByCount.put(entry.getCount(), entry.getElement());
+      }
+      for (Map.Entry<Integer, Collection<Long>> entry : idsByCount.asMap().entrySet()) {
+         for (List<Long> batch : Iterables.partition(entry.getValue(), MAX_IDS_PER_QUERY)) {
+            entityManager.get().createQuery("UPDATE " + entityClass.getName() + " c "
+                  + "SET c.refCount = c.refCount - :count WHERE c.id IN :ids")
+                  .setParameter("count", entry.getKey())
+                  .setParameter("ids", batch)
+                  .executeUpdate();
+            entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " c "
+                  + "WHERE c.refCount <= 0 AND c.id IN :ids")
+                  .setParameter("ids", batch)
+                  .executeUpdate();
+         }
+      }
+   }
+
+   public int deleteChunksByPayload(Long payloadId) {
+      return releasePayloadChunks(ImmutableList.of(payloadId));
+   }
+
+   /**
+    * Drops the references the given payloads hold on their chunks and deletes the chunks that
+    * are no longer referenced, with a pair of statements per {@value #MAX_IDS_PER_QUERY}
+    * payloads. It must run before the chunk lists of the payloads are deleted.
+    *
+    * @return the number of chunks deleted
+    */
+   public int releasePayloadChunks(Collection<Long> payloadIds) {
+      return releaseChunks("PayloadEntity_chunks", "payload_id", payloadIds);
+   }
+
+   /**
+    * Same as {@link #releasePayloadChunks} for the chunks of a multipart upload part.
+    */
+   public int releasePartChunks(Long partId) {
+      return releasePartChunks(ImmutableList.of(partId));
+   }
+
+   /**
+    * Same as {@link #releasePayloadChunks} for the chunks of multipart upload parts.
+    */
+   public int releasePartChunks(Collection<Long> partIds) {
+      return releaseChunks("MultipartPartEntity_chunks", "part_id", partIds);
+   }
+
+   private int releaseChunks(String chunkTable, String ownerColumn, Collection<Long> ownerIds) {
+      int deleted = 0;
+      for (List<Long> batch : Iterables.partition(ownerIds, MAX_IDS_PER_QUERY)) {
+         deleted += releaseChunks(chunkTable, ownerColumn, placeholders(1, batch.size()), batch.toArray());
+      }
+      return deleted;
+   }
+
+   private int releaseChunks(String chunkTable, String ownerColumn, String owners, Object... parameters) {
+      String chunks = "SELECT oc.chunk_id FROM " + chunkTable + " oc WHERE oc." + ownerColumn + " IN (" + owners + ")";
+      executeNativeUpdate("UPDATE ChunkEntity SET ref_count = ref_count - (SELECT COUNT(*) FROM " + chunkTable + " oc"
+            + " WHERE oc.chunk_id = ChunkEntity.id AND oc." + ownerColumn + " IN (" + owners + "))"
+            + " WHERE id IN (" + chunks + ")", parameters);
+      return executeNativeUpdate("DELETE FROM ChunkEntity WHERE ref_count <= 0 AND id IN (" + chunks + ")",
+            parameters);
+   }
+
+   /**
+    * Recomputes the reference counts of all the chunks from the chunk lists of the payloads and
+    * of the multipart upload parts, and deletes the chunks nothing refers to.
+    *
+    * @return the number of chunks deleted
+    */
+   public int deleteOrphanedChunks() {
+      executeNativeUpdate("UPDATE ChunkEntity SET ref_count = "
+            + "(SELECT COUNT(*) FROM PayloadEntity_chunks pc WHERE pc.chunk_id = ChunkEntity.id)"
+            + " + (SELECT COUNT(*) FROM MultipartPartEntity_chunks mc WHERE mc.chunk_id = ChunkEntity.id)");
+      return executeNativeUpdate("DELETE FROM ChunkEntity WHERE ref_count <= 0");
+   }
+
+   public long countChunks() {
+      return entityManager.get().createQuery("SELECT COUNT(c) FROM " + entityClass.getName() + " c", Long.class)
+            .getSingleResult();
+   }
+
+   /**
+    * Returns the total size of the stored chunks, as stored in the database.
+    */
+   public long sumStoredChunkSizes() {
+      return toLong(entityManager.get().createNativeQuery("SELECT SUM(c.stored_size) FROM ChunkEntity c")
+            .getSingleResult());
+   }
+
+   /**
+    * Returns the total size of the stored chunks once decoded.
+    */
+   public long sumChunkSizes() {
+      return toLong(entityManager.get().createNativeQuery("SELECT SUM(c.size) FROM ChunkEntity c").getSingleResult());
+   }
+
+   /**
+    * Returns the total size of the chunks referenced by payloads and multipart upload parts,
+    * counting shared chunks once per reference.
+    */
+   public long sumReferencedChunkSizes() {
+      return toLong(entityManager.get().createNativeQuery("SELECT SUM(c.size) FROM"
+            + " (SELECT pc.chunk_id FROM PayloadEntity_chunks pc"
+            + " UNION ALL SELECT mc.chunk_id FROM MultipartPartEntity_chunks mc) r"
+            + " JOIN ChunkEntity c ON c.id = r.chunk_id").getSingleResult());
+   }
+
+   private static long toLong(Object value) {
+      return value == null ? 0 : ((Number) value).longValue();
+   }
+
 }
@@ -48,10 +48,19 @@ public class ContainerRepository extends GenericRepository<ContainerEntity, Long
             .getResultList();
    }
 
+   /**
+    * Lists the names of the containers in name order, without loading the containers.
+    */
+   public List<String> findContainerNames() {
+      return entityManager.get().createQuery("SELECT c.name FROM " + entityClass.getName() + " c ORDER BY c.name",
+            String.class)
+            .getResultList();
+   }
+
    public void deleteContainerByName(String name) {
       ContainerEntity containerEntity = findContainerByName(name);
       if (containerEntity != null) {
-         delete(findContainerByName(name));
+         delete(containerEntity);
       }
    }
 
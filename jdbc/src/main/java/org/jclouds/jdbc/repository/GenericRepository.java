@@ -16,12 +16,16 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Query;
 import java.io.Serializable;
 import java.lang.reflect.ParameterizedType;
+import java.util.List;
 
 public abstract class GenericRepository<T, PK extends Serializable> {
 
@@ -35,6 +39,49 @@ public abstract class GenericRepository<T, PK extends Serializable> {
       this.entityClass = (Class<T>) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
    }
 
+   /**
+    * Escapes the LIKE wildcards of a literal so it can be used as a pattern prefix. Queries
+    * using it must declare {@code ESCAPE '!'}.
+    */
+   protected static String escapeLike(String literal) {
+      return literal.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+   }
+
+   /**
+    * Returns a comma separated list of {@code count} positional parameters, numbered from
+    * {@code first}.
+    */
+   protected static String placeholders(int first, int count) {
+      StringBuilder placeholders = new StringBuilder();
+      for (int i = 0; i < count; i++) {
+         placeholders.append(i == 0 ? "" : ", ").append('?').append(first + i);
+      }
+      return placeholders.toString();
+   }
+
+   protected int executeNativeUpdate(String sql, Object... parameters) {
+      Query query = entityManager.get().createNativeQuery(sql);
+      for (int i = 0; i < parameters.length; i++) {
+         query.setParameter(i + 1, parameters[i]);
+      }
+      return query.executeUpdate();
+   }
+
+   /**
+    * Runs a native query returning a single column of ids.
+    */
+   protected List<Long> findNativeIds(String sql, Object... parameters) {
+      Query query = entityManager.get().createNativeQuery(sql);
+      for (int i = 0; i < parameters.length; i++) {
+         query.setParameter(i + 1, parameters[i]);
+      }
+      List<Long> ids = Lists.newArrayList();
+      for (Object id : query.getResultList()) {
+         ids.add(((Number) id).longValue());
+      }
+      return ids;
+   }
+
    public T create(T entity) {
       entityManager.get().persist(entity);
       return entity;
@@ -44,10 +91,33 @@ public abstract class GenericRepository<T, PK extends Serializable> {
       return entityManager.get().find(entityClass, id);
    }
 
+   /**
+    * Loads an entity and locks its row until the end of the transaction, so concurrent
+    * transactions changing the same entity run one after the other.
+    */
+   public T findForUpdate(PK id) {
+      return entityManager.get().find(entityClass, id, LockModeType.PESSIMISTIC_WRITE);
+   }
+
+   /**
+    * Returns a reference to an entity known to exist, without loading it.
+    */
+   public T getReference(PK id) {
+      return entityManager.get().getReference(entityClass, id);
+   }
+
    public T save(T entity) {
       return entityManager.get().merge(entity);
    }
 
+   public void flush() {
+      entityManager.get().flush();
+   }
+
+   public void detach(T entity) {
+      entityManager.get().detach(entity);
+   }
+
    public void delete(T entity) {
       entityManager.get().remove(entityManager.get().contains(entity) ? entity : entityManager.get().merge(entity));
    }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.repository;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Singleton
+public class MultipartUploadRepository extends GenericRepository<MultipartUploadEntity, String> {
+
+   private final ChunkRepository chunkRepository;
+
+   @Inject
+   private MultipartUploadRepository(Provider<EntityManager> entityManager, ChunkRepository chunkRepository) {
+      super(entityManager);
+      this.chunkRepository = chunkRepository;
+   }
+
+   public List<MultipartUploadEntity> findUploadsByContainer(ContainerEntity containerEntity) {
+      return entityManager.get().createQuery("SELECT u FROM " + entityClass.getName() + " u "
+            + "WHERE u.containerEntity = :containerEntity ORDER BY u.key, u.creationDate", entityClass)
+            .setParameter("containerEntity", containerEntity)
+            .getResultList();
+   }
+
+   /**
+    * Deletes an upload with its parts, and the chunks only referenced by its parts.
+    */
+   public int deleteUpload(String uploadId) {
+      return deleteUploads(true, "%1$s.id = ?1", uploadId);
+   }
+
+   /**
+    * Deletes an upload with its parts once they have been stitched into a payload. The
+    * references the parts hold on their chunks are handed over to the payload, so the chunks
+    * are kept.
+    */
+   public int deleteCompletedUpload(String uploadId) {
+      return deleteUploads(false, "%1$s.id = ?1", uploadId);
+   }
+
+   public int deleteUploadsByContainer(ContainerEntity containerEntity) {
+      return deleteUploads(true, "%1$s.container_id = ?1", containerEntity.getId());
+   }
+
+   /**
+    * Deletes the uploads matching a condition on the upload table, with their parts.
+    *
+    * @param releaseChunks whether the chunks of the parts are released
+    * @param scope SQL condition selecting the uploads, where {@code %1$s} stands for the upload table
+    * @param parameters positional parameters of the condition
+    * @return the number of uploads deleted
+    */
+   private int deleteUploads(boolean releaseChunks, String scope, Object... parameters) {
+      String parts = "SELECT p.id FROM MultipartPartEntity p WHERE p.upload_id IN "
+            + "(SELECT u.id FROM MultipartUploadEntity u WHERE " + String.format(scope, "u") + ")";
+      if (releaseChunks) {
+         chunkRepository.releasePartChunks(findNativeIds(parts, parameters));
+      }
+      executeNativeUpdate("DELETE FROM MultipartPartEntity_chunks WHERE part_id IN (" + parts + ")", parameters);
+      executeNativeUpdate("DELETE FROM MultipartPartEntity WHERE upload_id IN "
+            + "(SELECT u.id FROM MultipartUploadEntity u WHERE " + String.format(scope, "u") + ")", parameters);
+      executeNativeUpdate("DELETE FROM MultipartUploadEntity_userMetadata WHERE upload_id IN "
+            + "(SELECT u.id FROM MultipartUploadEntity u WHERE " + String.format(scope, "u") + ")", parameters);
+      return executeNativeUpdate("DELETE FROM MultipartUploadEntity WHERE "
+            + String.format(scope, "MultipartUploadEntity"), parameters);
+   }
+
+}
@@ -16,115 +16,449 @@
  */
 package org.jclouds.jdbc.service;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.persist.Transactional;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
-import org.jclouds.io.ByteStreams2;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.io.ContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.jdbc.config.JdbcProperties;
 import org.jclouds.jdbc.conversion.BlobToBlobEntity;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
+import org.jclouds.jdbc.entity.BlobMetadataProjection;
+import org.jclouds.jdbc.entity.ChunkCodec;
 import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
 import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.repository.BlobRepository;
 import org.jclouds.jdbc.repository.ChunkRepository;
 import org.jclouds.jdbc.repository.ContainerRepository;
-import org.jclouds.jdbc.util.JdbcInputStream;
-
+import org.jclouds.jdbc.repository.MultipartPartRepository;
+import org.jclouds.jdbc.repository.MultipartUploadRepository;
+import org.jclouds.jdbc.util.BlobKeys;
+import org.jclouds.jdbc.util.ChunkRange;
+import org.jclouds.jdbc.util.KeyIterable;
+import org.jclouds.logging.Logger;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.persistence.EntityExistsException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Date;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.io.BaseEncoding.base16;
 
 @Singleton
 public class JdbcService {
 
    private static final String DIRECTORY_MD5 = Hashing.md5().hashBytes(new byte[0]).toString();
+   private static final int PUBLISH_ATTEMPTS = 10;
+   private static final long PUBLISH_BACKOFF_MILLIS = 2;
+   private static final String UNIQUE_VIOLATION = "23505";
+   private static final String INTEGRITY_VIOLATION = "23000";
+   private static final int MYSQL_DUPLICATE_KEY = 1062;
+
+   @Resource
+   @Named(BlobStoreConstants.BLOBSTORE_LOGGER)
+   protected Logger logger = Logger.NULL;
 
    private final ContainerRepository containerRepository;
    private final BlobRepository blobRepository;
    private final ChunkRepository chunkRepository;
+   private final MultipartUploadRepository multipartUploadRepository;
+   private final MultipartPartRepository multipartPartRepository;
    private final BlobToBlobEntity blobToBlobEntity;
 
+   private int chunkSize = JdbcConstants.DEFAULT_CHUNK_SIZE;
+   private int writeBatchSize = JdbcConstants.DEFAULT_WRITE_BATCH_SIZE;
+   private boolean deduplication = JdbcConstants.DEFAULT_DEDUPLICATION;
+   private ChunkCodec compression = ChunkCodec.valueOf(JdbcConstants.DEFAULT_COMPRESSION.toUpperCase());
+   private Cache<String, ContainerEntity> containers = newContainerCache(JdbcConstants.DEFAULT_CONTAINER_CACHE_SIZE);
+   private final Object containerLock = new Object();
+   private long containerGeneration;
+
    @Inject
    JdbcService(ContainerRepository containerRepository, BlobRepository blobRepository, ChunkRepository chunkRepository,
+         MultipartUploadRepository multipartUploadRepository, MultipartPartRepository multipartPartRepository,
          BlobToBlobEntity blobToBlobEntity) {
       this.containerRepository = containerRepository;
       this.blobRepository = blobRepository;
       this.chunkRepository = chunkRepository;
+      this.multipartUploadRepository = multipartUploadRepository;
+      this.multipartPartRepository = multipartPartRepository;
       this.blobToBlobEntity = blobToBlobEntity;
    }
 
-   @Transactional
+   @Inject(optional = true)
+   void setChunkSize(@Named(JdbcProperties.CHUNK_SIZE) int chunkSize) {
+      checkArgument(chunkSize > 0 && chunkSize <= JdbcConstants.MAX_CHUNK_SIZE,
+            "chunk size must be between 1 and %s bytes", JdbcConstants.MAX_CHUNK_SIZE);
+      this.chunkSize = chunkSize;
+   }
+
+   @Inject(optional = true)
+   void setWriteBatchSize(@Named(JdbcProperties.WRITE_BATCH_SIZE) int writeBatchSize) {
+      checkArgument(writeBatchSize > 0, "write batch size must be positive");
+      this.writeBatchSize = writeBatchSize;
+   }
+
+   @Inject(optional = true)
+   void setDeduplication(@Named(JdbcProperties.DEDUPLICATION) boolean deduplication) {
+      this.deduplication = deduplication;
+   }
+
+   @Inject(optional = true)
+   void setCompression(@Named(JdbcProperties.COMPRESSION) String compression) {
+      this.compression = ChunkCodec.valueOf(compression.trim().toUpperCase());
+   }
+
+   @Inject(optional = true)
+   void setContainerCacheSize(@Named(JdbcProperties.CONTAINER_CACHE_SIZE) int containerCacheSize) {
+      checkArgument(containerCacheSize >= 0, "container cache size must not be negative");
+      this.containers = newContainerCache(containerCacheSize);
+   }
+
+   private static Cache<String, ContainerEntity> newContainerCache(int maximumSize) {
+      return CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+   }
+
+   /**
+    * Returns the hit and miss counts of the cache of container ids and access.
+    */
+   public CacheStats getContainerCacheStats() {
+      return containers.stats();
+   }
+
+   /**
+    * Creates a container. Like the other container changes, it is not transactional itself,
+    * so that the container cache is invalidated once the change is committed.
+    */
    public void createContainer(String containerName, ContainerAccess access) {
-      containerRepository.create(ContainerEntity.builder().name(containerName).containerAccess(access).build());
+      try {
+         insertContainer(containerName, access);
+      } finally {
+         invalidateContainer(containerName);
+      }
    }
 
-   @Transactional
    public void createContainer(String containerName) {
       createContainer(containerName, null);
    }
 
+   @Transactional
+   void insertContainer(String containerName, ContainerAccess access) {
+      containerRepository.create(ContainerEntity.builder().name(containerName).containerAccess(access).build());
+   }
+
    @Transactional
    public List<ContainerEntity> findAllContainers() {
       return containerRepository.findAllContainers();
    }
 
    @Transactional
-   public ContainerEntity findContainerByName(String containerName) {
-      return containerRepository.findContainerByName(containerName);
+   public List<String> findContainerNames() {
+      return containerRepository.findContainerNames();
    }
 
    @Transactional
+   public ContainerEntity findContainerByName(String containerName) {
+      ContainerEntity containerEntity = findContainer(containerName);
+      return containerEntity == null ? null : copyOf(containerEntity);
+   }
+
    public void deleteContainerByName(String containerName) {
-      containerRepository.deleteContainerByName(containerName);
+      try {
+         removeContainerByName(containerName);
+      } finally {
+         invalidateContainer(containerName);
+      }
    }
 
    @Transactional
+   void removeContainerByName(String containerName) {
+      ContainerEntity containerEntity = findContainer(containerName);
+      if (containerEntity != null) {
+         multipartUploadRepository.deleteUploadsByContainer(containerEntity);
+      }
+      containerRepository.deleteContainerByName(containerName);
+   }
+
    public void setContainerAccessByName(String containerName, ContainerAccess access) {
+      try {
+         updateContainerAccess(containerName, access);
+      } finally {
+         invalidateContainer(containerName);
+      }
+   }
+
+   @Transactional
+   void updateContainerAccess(String containerName, ContainerAccess access) {
       ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
       containerEntity.setContainerAccess(access);
       containerRepository.save(containerEntity);
    }
 
+   /**
+    * Looks a container up in the cache, loading it on a miss. Missing containers are not
+    * cached. The returned entity is shared and detached, so it must not be modified.
+    */
+   private ContainerEntity findContainer(String containerName) {
+      ContainerEntity containerEntity = containers.getIfPresent(containerName);
+      if (containerEntity == null) {
+         long generation;
+         synchronized (containerLock) {
+            generation = containerGeneration;
+         }
+         containerEntity = containerRepository.findContainerByName(containerName);
+         if (containerEntity == null) {
+            return null;
+         }
+         containerEntity = copyOf(containerEntity);
+         synchronized (containerLock) {
+            // The row may have been read before a change committed meanwhile, so it is only cached
+            // if no container was invalidated since the lookup started
+            if (generation == containerGeneration) {
+               containers.put(containerName, containerEntity);
+            }
+         }
+      }
+      return containerEntity;
+   }
+
+   /**
+    * Drops a container from the cache. It must run after the change to the container is
+    * committed, otherwise a concurrent lookup could cache the row as it was before the change.
+    */
+   private void invalidateContainer(String containerName) {
+      synchronized (containerLock) {
+         containerGeneration++;
+         containers.invalidate(containerName);
+      }
+   }
+
+   private static ContainerEntity copyOf(ContainerEntity containerEntity) {
+      return new ContainerEntity(containerEntity.getId(), containerEntity.getName(), containerEntity.getCreationDate(),
+            containerEntity.getContainerAccess());
+   }
+
+   private ContainerEntity getContainerReference(String containerName) {
+      ContainerEntity containerEntity = findContainer(containerName);
+      checkArgument(containerEntity != null, "container %s does not exist", containerName);
+      return containerRepository.getReference(containerEntity.getId());
+   }
+
    @Transactional
    public boolean blobExists(String containerName, String key) {
-      return findBlobById(containerName, key) != null;
+      ContainerEntity containerEntity = findContainer(containerName);
+      return containerEntity != null && blobRepository.blobExists(containerEntity.getId(), key);
    }
 
-   @Transactional(rollbackOn = IOException.class)
+   /**
+    * Stores a blob, replacing the previous version if any. The content is stored as chunks in
+    * a first transaction and the blob is published in a second, short one, so writers only
+    * contend on the blob row while publishing. When concurrent writers of a key conflict, the
+    * version of the blob or its primary key makes the loser fail and, after a short random
+    * pause, publish again on top of the winner, so the last writer wins. Other failures are
+    * not retried. Not transactional itself, so that every attempt runs in its own transaction.
+    */
    public BlobEntity createOrModifyBlob(String containerName, Blob blob, BlobAccess blobAccess) throws IOException {
-      String key = blob.getMetadata().getName();
-      Date creationDate = null;
-      BlobEntity oldBlobEntity = findBlobById(containerName, key);
-      if (oldBlobEntity != null) {
-         creationDate = oldBlobEntity.getCreationDate();
-         deleteBlob(containerName, key);
+      StoredData data = storeBlobData(containerName, blob);
+      boolean published = false;
+      try {
+         for (int attempt = 1; ; attempt++) {
+            try {
+               BlobEntity blobEntity = publishBlob(containerName, blob, blobAccess, data);
+               published = true;
+               return blobEntity;
+            } catch (PersistenceException e) {
+               if (attempt == PUBLISH_ATTEMPTS || !isWriteConflict(e)) {
+                  throw e;
+               }
+               logger.debug("<< conflict publishing %s/%s, attempt %d: %s", containerName,
+                     blob.getMetadata().getName(), attempt, e.getMessage());
+               backOff(attempt, e);
+            }
+         }
+      } finally {
+         if (!published) {
+            releaseChunks(data.chunks);
+         }
+      }
+   }
+
+   public BlobEntity createOrModifyBlob(String containerName, Blob blob) throws IOException {
+      return createOrModifyBlob(containerName, blob, null);
+   }
+
+   /**
+    * Tells whether a publication lost a race with a concurrent writer of the same key, on the
+    * version of the blob or on its primary key. Other failures, such as a missing container or
+    * a lost connection, are not worth retrying.
+    */
+   private static boolean isWriteConflict(PersistenceException e) {
+      for (Throwable cause : Throwables.getCausalChain(e)) {
+         if (cause instanceof OptimisticLockException || cause instanceof EntityExistsException) {
+            return true;
+         }
+         if (cause instanceof SQLException) {
+            SQLException sqlException = (SQLException) cause;
+            // The standard state of unique violations, or the generic one with the MySQL duplicate key code
+            if (UNIQUE_VIOLATION.equals(sqlException.getSQLState()) || (INTEGRITY_VIOLATION.equals(
+                  sqlException.getSQLState()) && sqlException.getErrorCode() == MYSQL_DUPLICATE_KEY)) {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Waits before publishing again for a random time whose bound doubles with each attempt, so
+    * that writers which conflicted do not collide again right away.
+    */
+   private static void backOff(int attempt, PersistenceException e) {
+      try {
+         Thread.sleep(ThreadLocalRandom.current().nextLong(PUBLISH_BACKOFF_MILLIS << Math.min(attempt - 1, 6)) + 1);
+      } catch (InterruptedException interrupted) {
+         Thread.currentThread().interrupt();
+         throw e;
+      }
+   }
+
+   /**
+    * Stores several blobs, replacing their previous versions if any. The contents of all the
+    * blobs are stored in a single transaction and the blobs are published together in a
+    * second one, retried as a whole on conflicts like {@link #createOrModifyBlob}. Either all
+    * the blobs are stored or none is.
+    *
+    * @return the stored blobs, in the order of the given ones
+    */
+   public List<BlobEntity> createOrModifyBlobs(String containerName, List<Blob> blobs, BlobAccess blobAccess)
+         throws IOException {
+      List<StoredData> data = storeBlobsData(containerName, blobs);
+      boolean published = false;
+      try {
+         for (int attempt = 1; ; attempt++) {
+            try {
+               List<BlobEntity> blobEntities = publishBlobs(containerName, blobs, blobAccess, data);
+               published = true;
+               return blobEntities;
+            } catch (PersistenceException e) {
+               if (attempt == PUBLISH_ATTEMPTS || !isWriteConflict(e)) {
+                  throw e;
+               }
+               logger.debug("<< conflict publishing %d blobs in %s, attempt %d: %s", blobs.size(), containerName,
+                     attempt, e.getMessage());
+               backOff(attempt, e);
+            }
+         }
+      } finally {
+         if (!published) {
+            List<Long> chunks = Lists.newArrayList();
+            for (StoredData blobData : data) {
+               chunks.addAll(blobData.chunks);
+            }
+            releaseChunks(chunks);
+         }
       }
+   }
+
+   /**
+    * Stores the content of a blob as chunks owned by the caller until they are published or
+    * released.
+    */
+   @Transactional(rollbackOn = IOException.class)
+   StoredData storeBlobData(String containerName, Blob blob) throws IOException {
+      checkArgument(findContainer(containerName) != null, "container %s does not exist", containerName);
+      StoredData data = storeData(blob.getPayload(), containerName, blob.getMetadata().getName());
+      checkIntegrity(blob.getMetadata().getContentMetadata(), data.hash);
+      return data;
+   }
+
+   @Transactional(rollbackOn = IOException.class)
+   List<StoredData> storeBlobsData(String containerName, List<Blob> blobs) throws IOException {
+      List<StoredData> data = Lists.newArrayListWithCapacity(blobs.size());
+      for (Blob blob : blobs) {
+         data.add(storeBlobData(containerName, blob));
+      }
+      return data;
+   }
+
+   @Transactional
+   List<BlobEntity> publishBlobs(String containerName, List<Blob> blobs, BlobAccess blobAccess,
+         List<StoredData> data) {
+      List<BlobEntity> blobEntities = Lists.newArrayListWithCapacity(blobs.size());
+      for (int i = 0; i < blobs.size(); i++) {
+         blobEntities.add(publishBlob(containerName, blobs.get(i), blobAccess, data.get(i)));
+      }
+      return blobEntities;
+   }
+
+   @Transactional
+   BlobEntity publishBlob(String containerName, Blob blob, BlobAccess blobAccess, StoredData data) {
+      String key = blob.getMetadata().getName();
       BlobEntity blobEntity = blobToBlobEntity.apply(blob);
-      blobEntity.getPayload().setChunks(storeData(blob.getPayload().openStream()));
-      blobEntity.setContainerEntity(containerRepository.findContainerByName(containerName));
+      blobEntity.setContainerEntity(getContainerReference(containerName));
       blobEntity.setKey(key);
       blobEntity.setBlobAccess(blobAccess);
-      blobEntity.setCreationDate(creationDate);
-
-      HashCode hash = ByteStreams2.hashAndClose(blob.getPayload().openStream(), Hashing.md5());
-      blobEntity.setEtag(base16().lowerCase().encode(hash.asBytes()));
-      blobEntity.getPayload().setContentMD5(hash.asBytes());
+      blobEntity.getPayload().setChunks(data.chunks);
+      blobEntity.setEtag(base16().lowerCase().encode(data.hash.asBytes()));
+      blobEntity.setSize(data.size);
+      blobEntity.getPayload().setContentLength(data.size);
+      blobEntity.getPayload().setContentMD5(data.hash.asBytes());
+      return replaceBlob(containerName, key, blobEntity);
+   }
 
-      BlobEntity result = blobRepository.create(blobEntity);
-      checkIntegrity(blob, result);
-      return result;
+   /**
+    * Stores a new blob in place of the previous version, if any. The previous version is only
+    * deleted once the new content is stored, so the chunks they share are not deleted and
+    * written again.
+    */
+   private BlobEntity replaceBlob(String containerName, String key, BlobEntity blobEntity) {
+      BlobEntity oldBlobEntity = findBlobById(containerName, key);
+      if (oldBlobEntity != null) {
+         blobEntity.setCreationDate(oldBlobEntity.getCreationDate());
+         deleteBlob(oldBlobEntity);
+         blobRepository.flush();
+      }
+      return blobRepository.create(blobEntity);
    }
 
    @Transactional
@@ -134,7 +468,7 @@ public class JdbcService {
             .directory(true)
             .payload(PayloadEntity.builder().contentType("application/directory").build())
             .build();
-      blobEntity.setContainerEntity(containerRepository.findContainerByName(containerName));
+      blobEntity.setContainerEntity(getContainerReference(containerName));
       blobEntity.setKey(blob.getMetadata().getName());
       blobEntity.setBlobAccess(blobAccess);
       blobEntity.setEtag(DIRECTORY_MD5);
@@ -146,64 +480,222 @@ public class JdbcService {
       return createDirectoryBlob(containerName, blob, null);
    }
 
-   @Transactional(rollbackOn = IOException.class)
-   public BlobEntity createOrModifyBlob(String containerName, Blob blob) throws IOException {
-      return createOrModifyBlob(containerName, blob, null);
+   /**
+    * Copies a blob inside the database. The copy gets new blob and payload rows and shares the
+    * chunks of the original, so no content goes through the JVM whatever the size of the blob.
+    *
+    * @param contentMetadata content metadata replacing the one of the original, if not null
+    * @param userMetadata user metadata replacing the one of the original, if not null
+    * @return the copy, or null if the original does not exist
+    */
+   @Transactional
+   public BlobEntity copyBlob(String fromContainerName, String fromKey, String toContainerName, String toKey,
+         @Nullable ContentMetadata contentMetadata, @Nullable Map<String, String> userMetadata) {
+      BlobEntity source = findBlobById(fromContainerName, fromKey);
+      if (source == null) {
+         return null;
+      }
+      if (fromContainerName.equals(toContainerName) && fromKey.equals(toKey)) {
+         // Copying a blob onto itself only replaces its metadata
+         copyMetadata(source, contentMetadata, userMetadata);
+         return blobRepository.save(source);
+      }
+
+      PayloadEntity sourcePayload = source.getPayload();
+      // The chunk list is filled by the copy statement once the payload is inserted
+      PayloadEntity payload = PayloadEntity.builder()
+            .chunks(ImmutableList.<Long>of())
+            .contentType(sourcePayload.getContentType())
+            .contentLength(sourcePayload.getContentLength())
+            .contentMD5(sourcePayload.getContentMD5())
+            .contentDisposition(sourcePayload.getContentDisposition())
+            .contentLanguage(sourcePayload.getContentLanguage())
+            .contentEncoding(sourcePayload.getContentEncoding())
+            .expires(sourcePayload.getExpires())
+            .build();
+      BlobEntity blobEntity = BlobEntity.builder(null, null)
+            .payload(payload)
+            .userMetadata(source.getUserMetadata() == null ? null : Maps.newHashMap(source.getUserMetadata()))
+            .blobAccess(source.getBlobAccess())
+            .size(source.getSize())
+            .etag(source.getEtag())
+            .directory(source.isDirectory())
+            .build();
+      copyMetadata(blobEntity, contentMetadata, userMetadata);
+      blobEntity.setContainerEntity(getContainerReference(toContainerName));
+      blobEntity.setKey(toKey);
+
+      blobEntity = replaceBlob(toContainerName, toKey, blobEntity);
+      blobRepository.flush();
+      chunkRepository.shareChunks(sourcePayload.getId(), payload.getId());
+      return blobEntity;
+   }
+
+   private static void copyMetadata(BlobEntity blobEntity, @Nullable ContentMetadata contentMetadata,
+         @Nullable Map<String, String> userMetadata) {
+      if (contentMetadata != null) {
+         PayloadEntity payload = blobEntity.getPayload();
+         payload.setContentType(contentMetadata.getContentType());
+         payload.setContentDisposition(contentMetadata.getContentDisposition());
+         payload.setContentLanguage(contentMetadata.getContentLanguage());
+         payload.setContentEncoding(contentMetadata.getContentEncoding());
+         payload.setExpires(contentMetadata.getExpires());
+      }
+      if (userMetadata != null) {
+         blobEntity.setUserMetadata(Maps.newHashMap(userMetadata));
+      }
    }
 
    @Transactional
    public BlobEntity findBlobById(String containerName, String key) {
-      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      ContainerEntity containerEntity = findContainer(containerName);
       return containerEntity == null ? null : blobRepository.find(new BlobEntityPK(containerEntity.getId(), key));
    }
 
+   /**
+    * Loads the metadata of a blob, including its user metadata, without the chunk list of its
+    * payload.
+    */
+   @Transactional
+   public BlobMetadataProjection findBlobMetadata(String containerName, String key) {
+      ContainerEntity containerEntity = findContainer(containerName);
+      if (containerEntity == null) {
+         return null;
+      }
+      BlobMetadataProjection metadata = blobRepository.findBlobMetadata(containerEntity.getId(), key);
+      if (metadata != null) {
+         metadata.setUserMetadata(blobRepository.findUserMetadata(containerEntity.getId(), key));
+      }
+      return metadata;
+   }
+
+   /**
+    * Loads the metadata of several blobs of a container, skipping the keys without a blob.
+    *
+    * @param userMetadata whether the user metadata of each blob is loaded too, with one more
+    *                     query per blob
+    * @return the metadata of the blobs by key
+    */
+   @Transactional
+   public Map<String, BlobMetadataProjection> findBlobMetadata(String containerName, Collection<String> keys,
+         boolean userMetadata) {
+      ContainerEntity containerEntity = findContainer(containerName);
+      Map<String, BlobMetadataProjection> blobs = Maps.newHashMap();
+      if (containerEntity == null || keys.isEmpty()) {
+         return blobs;
+      }
+      for (BlobMetadataProjection metadata : blobRepository.findBlobMetadata(containerEntity.getId(), keys)) {
+         metadata.setUserMetadata(userMetadata
+               ? blobRepository.findUserMetadata(containerEntity.getId(), metadata.getKey())
+               : Maps.<String, String>newHashMap());
+         blobs.put(metadata.getKey(), metadata);
+      }
+      return blobs;
+   }
+
+   @Transactional
+   public BlobAccess findBlobAccess(String containerName, String key) {
+      ContainerEntity containerEntity = findContainer(containerName);
+      BlobMetadataProjection metadata = containerEntity == null ? null
+            : blobRepository.findBlobMetadata(containerEntity.getId(), key);
+      return metadata == null ? null : metadata.getBlobAccess();
+   }
+
    @Transactional
    public ChunkEntity findChunkById(Long id) {
       return chunkRepository.find(id);
    }
 
+   /**
+    * Selects the chunks of a payload covering a byte range, without reading their data.
+    */
+   @Transactional
+   public ChunkRange findChunkRange(Long payloadId, long offset, long length) {
+      List<Long> chunkIds = Lists.newArrayList();
+      List<Integer> chunkSizes = Lists.newArrayList();
+      for (Object[] row : chunkRepository.findChunkSizesByPayload(payloadId)) {
+         chunkIds.add(((Number) row[0]).longValue());
+         chunkSizes.add(((Number) row[1]).intValue());
+      }
+      return ChunkRange.select(chunkIds, chunkSizes, offset, length);
+   }
+
+   @Transactional
+   public List<ChunkEntity> findChunksByIds(Collection<Long> ids) {
+      return chunkRepository.findChunksByIds(ids);
+   }
+
    @Transactional
    public List<BlobEntity> findBlobsByContainer(String containerName) {
-      return blobRepository.findBlobsByContainer(containerRepository.findContainerByName(containerName));
+      ContainerEntity containerEntity = findContainer(containerName);
+      if (containerEntity == null) {
+         return ImmutableList.of();
+      }
+      return blobRepository.findBlobsByContainer(containerEntity);
    }
 
    @Transactional
-   public List<BlobEntity> findBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      ImmutableList.Builder<BlobEntity> result = ImmutableList.builder();
-      List<BlobEntity> blobEntities = blobRepository
-            .findBlobsByDirectory(containerRepository.findContainerByName(containerName), directoryName);
-      result.addAll(blobEntities);
-      if (recursive) {
-         for (BlobEntity blobEntity : blobEntities) {
-            if (blobEntity.isDirectory()) {
-               result.addAll(findBlobsByDirectory(containerName, blobEntity.getKey(), true));
-            }
-         }
+   public List<String> findBlobKeys(String containerName, @Nullable String prefix, @Nullable String marker,
+         @Nullable Integer maxResults) {
+      ContainerEntity containerEntity = findContainer(containerName);
+      if (containerEntity == null) {
+         return ImmutableList.of();
       }
-      return result.build();
+      return blobRepository.findBlobKeys(containerEntity, prefix, marker, maxResults);
+   }
+
+   /**
+    * Iterates over the keys of a container in key order. The keys are read lazily, a page at a
+    * time and each page in its own transaction, so memory use does not grow with the container.
+    *
+    * @param prefix only return keys starting with this prefix, if not null
+    */
+   public Iterable<String> iterateBlobKeys(final String containerName, @Nullable final String prefix) {
+      return new KeyIterable(JdbcConstants.KEY_PAGE_SIZE) {
+         @Override
+         protected List<String> findPage(@Nullable String marker, int maxResults) {
+            return findBlobKeys(containerName, prefix, marker, maxResults);
+         }
+      };
+   }
+
+   @Transactional
+   public long countBlobs(String containerName, String prefix, boolean recursive) {
+      ContainerEntity containerEntity = findContainer(containerName);
+      return containerEntity == null ? 0 : blobRepository.countBlobs(containerEntity, prefix, recursive);
    }
 
    @Transactional
    public void deleteBlobsByContainer(String containerName) {
-      List<BlobEntity> blobs = findBlobsByContainer(containerName);
-      for (BlobEntity blob : blobs) {
-         deleteBlob(containerName, blob.getKey());
+      ContainerEntity containerEntity = findContainer(containerName);
+      if (containerEntity != null) {
+         blobRepository.deleteBlobsByContainer(containerEntity);
       }
    }
 
    @Transactional
    public void deleteBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      List<BlobEntity> blobs = findBlobsByDirectory(containerName, directoryName, false);
-      for (BlobEntity blob : blobs) {
-         if (!blob.isDirectory()) {
-            deleteBlob(containerName, blob.getKey());
-         }
-         else {
-            if (recursive) {
-               deleteBlobsByDirectory(containerName, blob.getKey(), true);
-               deleteBlob(containerName, blob.getKey());
-            }
-         }
+      ContainerEntity containerEntity = findContainer(containerName);
+      if (containerEntity != null) {
+         blobRepository.deleteBlobsByPrefix(containerEntity, BlobKeys.directoryPrefix(directoryName), recursive);
+      }
+   }
+
+   public void deleteContainer(String containerName) {
+      try {
+         removeContainer(containerName);
+      } finally {
+         invalidateContainer(containerName);
+      }
+   }
+
+   @Transactional
+   void removeContainer(String containerName) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      if (containerEntity != null) {
+         multipartUploadRepository.deleteUploadsByContainer(containerEntity);
+         blobRepository.deleteBlobsByContainer(containerEntity);
+         containerRepository.delete(containerEntity);
       }
    }
 
@@ -211,11 +703,30 @@ public class JdbcService {
    public void deleteBlob(String containerName, String key) {
       BlobEntity blobEntity = findBlobById(containerName, key);
       if (blobEntity != null) {
-         deleteChunks(blobEntity.getPayload().getChunks());
-         blobRepository.delete(blobEntity);
+         deleteBlob(blobEntity);
       }
    }
 
+   /**
+    * Deletes several blobs of a container in a single transaction, with a few statements per
+    * batch of keys rather than per blob.
+    *
+    * @return the keys of the blobs that existed and were deleted
+    */
+   @Transactional
+   public List<String> deleteBlobs(String containerName, Collection<String> keys) {
+      ContainerEntity containerEntity = findContainer(containerName);
+      if (containerEntity == null || keys.isEmpty()) {
+         return ImmutableList.of();
+      }
+      return blobRepository.deleteBlobsByKeys(containerEntity, ImmutableSet.copyOf(keys));
+   }
+
+   private void deleteBlob(BlobEntity blobEntity) {
+      chunkRepository.deleteChunksByPayload(blobEntity.getPayload().getId());
+      blobRepository.delete(blobEntity);
+   }
+
    @Transactional
    public void setBlobAccessById(String containerName, String key, BlobAccess access) {
       BlobEntity blobEntity = findBlobById(containerName, key);
@@ -223,35 +734,278 @@ public class JdbcService {
       blobRepository.save(blobEntity);
    }
 
+   /**
+    * Starts a multipart upload of a blob. Nothing is visible in the container until the upload
+    * is completed.
+    */
    @Transactional
-   private void deleteChunks(List<Long> chunkIds) {
-      for (Long chunkId : chunkIds) {
-         chunkRepository.delete(chunkRepository.find(chunkId));
+   public MultipartUploadEntity createMultipartUpload(String containerName, BlobMetadata blobMetadata,
+         BlobAccess blobAccess) {
+      ContentMetadata contentMetadata = blobMetadata.getContentMetadata();
+      MultipartUploadEntity upload = new MultipartUploadEntity();
+      upload.setId(UUID.randomUUID().toString());
+      upload.setContainerEntity(getContainerReference(containerName));
+      upload.setKey(blobMetadata.getName());
+      upload.setUserMetadata(blobMetadata.getUserMetadata() == null ? null
+            : Maps.newHashMap(blobMetadata.getUserMetadata()));
+      upload.setBlobAccess(blobAccess);
+      upload.setContentType(contentMetadata.getContentType());
+      upload.setContentDisposition(contentMetadata.getContentDisposition());
+      upload.setContentLanguage(contentMetadata.getContentLanguage());
+      upload.setContentEncoding(contentMetadata.getContentEncoding());
+      upload.setExpires(contentMetadata.getExpires());
+      return multipartUploadRepository.create(upload);
+   }
+
+   @Transactional
+   public MultipartUploadEntity findMultipartUpload(String uploadId) {
+      return multipartUploadRepository.find(uploadId);
+   }
+
+   @Transactional
+   public List<MultipartUploadEntity> findMultipartUploads(String containerName) {
+      ContainerEntity containerEntity = findContainer(containerName);
+      if (containerEntity == null) {
+         return ImmutableList.of();
       }
+      return multipartUploadRepository.findUploadsByContainer(containerEntity);
+   }
+
+   @Transactional
+   public List<MultipartPartEntity> findMultipartParts(String uploadId) {
+      return multipartPartRepository.findPartsByUpload(uploadId);
    }
 
+   /**
+    * Stores a part of a multipart upload in its own transaction, so parts can be uploaded from
+    * several threads and a failed part can be retried alone. Uploading a part number again
+    * replaces the previous part. The upload is locked only once the data is stored, so parts
+    * are ingested in parallel but cannot be added to an upload being completed or aborted.
+    */
    @Transactional(rollbackOn = IOException.class)
+   public MultipartPartEntity createMultipartPart(String uploadId, int partNumber, Payload payload)
+         throws IOException {
+      checkArgument(partNumber > 0, "part number must be positive");
+      MultipartUploadEntity upload = multipartUploadRepository.find(uploadId);
+      checkArgument(upload != null, "multipart upload %s does not exist", uploadId);
+
+      StoredData data = storeData(payload, upload.getContainerEntity().getName(),
+            upload.getKey() + " part " + partNumber);
+      checkIntegrity(payload.getContentMetadata(), data.hash);
+
+      upload = multipartUploadRepository.findForUpdate(uploadId);
+      checkState(upload != null, "multipart upload %s was completed or aborted concurrently", uploadId);
+      MultipartPartEntity oldPart = multipartPartRepository.findPart(uploadId, partNumber);
+      if (oldPart != null) {
+         chunkRepository.releasePartChunks(oldPart.getId());
+         multipartPartRepository.delete(oldPart);
+         multipartPartRepository.flush();
+      }
+      return multipartPartRepository.create(new MultipartPartEntity(upload, partNumber, data.chunks, data.size,
+            base16().lowerCase().encode(data.hash.asBytes())));
+   }
+
+   /**
+    * Completes a multipart upload by concatenating the chunk lists of the given parts into the
+    * payload of the blob, without copying any chunk. The parts left out are discarded.
+    *
+    * @param partETags the etags of the parts to assemble, by part number
+    * @return the blob, whose etag is the MD5 of the MD5s of the parts followed by the number
+    *         of parts, as S3 computes it
+    */
+   @Transactional
+   public BlobEntity completeMultipartUpload(String uploadId, SortedMap<Integer, String> partETags) {
+      checkArgument(!partETags.isEmpty(), "a multipart upload needs at least one part");
+      MultipartUploadEntity upload = multipartUploadRepository.findForUpdate(uploadId);
+      checkArgument(upload != null, "multipart upload %s does not exist", uploadId);
+
+      Map<Integer, MultipartPartEntity> parts = Maps.newHashMap();
+      for (MultipartPartEntity part : multipartPartRepository.findPartsByUpload(uploadId)) {
+         parts.put(part.getPartNumber(), part);
+      }
+      ImmutableList.Builder<Long> chunks = ImmutableList.builder();
+      Hasher etagHasher = Hashing.md5().newHasher();
+      long size = 0;
+      for (Map.Entry<Integer, String> partETag : partETags.entrySet()) {
+         MultipartPartEntity part = parts.remove(partETag.getKey());
+         checkArgument(part != null, "part %s of multipart upload %s does not exist", partETag.getKey(), uploadId);
+         checkArgument(partETag.getValue() == null || part.getEtag().equals(partETag.getValue().replace("\"", "")),
+               "etag of part %s does not match", partETag.getKey());
+         chunks.addAll(part.getChunks());
+         etagHasher.putBytes(base16().lowerCase().decode(part.getEtag()));
+         size += part.getSize();
+      }
+      for (MultipartPartEntity part : parts.values()) {
+         chunkRepository.releasePartChunks(part.getId());
+      }
+
+      String containerName = upload.getContainerEntity().getName();
+      PayloadEntity payload = PayloadEntity.builder()
+            .chunks(chunks.build())
+            .contentType(upload.getContentType())
+            .contentDisposition(upload.getContentDisposition())
+            .contentLanguage(upload.getContentLanguage())
+            .contentEncoding(upload.getContentEncoding())
+            .expires(upload.getExpires())
+            .contentLength(size)
+            .build();
+      BlobEntity blobEntity = BlobEntity.builder(null, null)
+            .payload(payload)
+            .userMetadata(upload.getUserMetadata() == null ? null : Maps.newHashMap(upload.getUserMetadata()))
+            .blobAccess(upload.getBlobAccess())
+            .size(size)
+            .etag(etagHasher.hash() + "-" + partETags.size())
+            .build();
+      blobEntity.setContainerEntity(getContainerReference(containerName));
+      blobEntity.setKey(upload.getKey());
+
+      // The references of the parts on their chunks now belong to the payload
+      checkState(multipartUploadRepository.deleteCompletedUpload(uploadId) == 1,
+            "multipart upload %s was completed or aborted concurrently", uploadId);
+      return replaceBlob(containerName, upload.getKey(), blobEntity);
+   }
+
+   /**
+    * Releases chunks which are not part of any payload, such as the chunks stored for a blob
+    * which could not be published.
+    */
+   @Transactional
+   void releaseChunks(List<Long> chunkIds) {
+      chunkRepository.releaseChunkIds(chunkIds);
+   }
+
+   /**
+    * Aborts a multipart upload, deleting its parts and their chunks.
+    */
+   @Transactional
+   public void deleteMultipartUpload(String uploadId) {
+      if (multipartUploadRepository.findForUpdate(uploadId) == null) {
+         return;
+      }
+      multipartUploadRepository.deleteUpload(uploadId);
+   }
+
+   /**
+    * Recomputes the reference counts of the chunks and deletes the ones no payload refers to.
+    * It repairs the counts after an interrupted deletion and should run while no blob is being
+    * written.
+    *
+    * @return the number of chunks deleted
+    */
+   @Transactional
+   public int collectGarbage() {
+      int deleted = chunkRepository.deleteOrphanedChunks();
+      logger.debug("<< deleted %d orphaned chunks", deleted);
+      return deleted;
+   }
+
+   @Transactional
+   public StorageStatistics getStorageStatistics() {
+      return new StorageStatistics(chunkRepository.countChunks(), chunkRepository.sumStoredChunkSizes(),
+            chunkRepository.sumChunkSizes(), chunkRepository.sumReferencedChunkSizes());
+   }
+
+   /**
+    * Stores the content of a payload as chunks, hashing and counting it while it is being
+    * chunked, so it is read exactly once.
+    */
+   private StoredData storeData(Payload payload, String containerName, String key) throws IOException {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      CountingInputStream countingStream = new CountingInputStream(payload.openStream());
+      HashingInputStream hashingStream = new HashingInputStream(Hashing.md5(), countingStream);
+      List<Long> chunks = storeData(hashingStream);
+      long size = countingStream.getCount();
+      logIngest(containerName, key, size, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+      return new StoredData(chunks, hashingStream.hash(), size);
+   }
+
    private List<Long> storeData(InputStream data) throws IOException {
       ImmutableList.Builder<Long> chunks = ImmutableList.builder();
-      int bytes;
-      byte[] buffer = new byte[JdbcConstants.DEFAULT_CHUNK_SIZE];
-      while ((bytes = data.read(buffer, 0, JdbcConstants.DEFAULT_CHUNK_SIZE)) != -1) {
-         chunks.add(chunkRepository.create(new ChunkEntity(buffer, bytes)).getId());
-         buffer = new byte[JdbcConstants.DEFAULT_CHUNK_SIZE];
+      // Chunks keep a reference to their buffer until they are flushed, so there is one buffer
+      // per chunk of a batch and the buffers are reused once the batch has been written
+      byte[][] buffers = new byte[writeBatchSize][];
+      List<ChunkEntity> batch = Lists.newArrayListWithCapacity(writeBatchSize);
+      try {
+         int bytes;
+         do {
+            int index = batch.size();
+            if (buffers[index] == null) {
+               buffers[index] = new byte[chunkSize];
+            }
+            bytes = ByteStreams.read(data, buffers[index], 0, chunkSize);
+            if (bytes > 0) {
+               chunks.add(storeChunk(buffers[index], bytes, batch));
+            }
+            if (batch.size() == writeBatchSize) {
+               releaseBatch(batch);
+            }
+         } while (bytes == chunkSize);
+      } finally {
+         data.close();
       }
-      data.close();
       return chunks.build();
    }
 
-   private void checkIntegrity(Blob blob, BlobEntity entity) throws IOException {
-      HashCode hash = blob.getMetadata().getContentMetadata().getContentMD5AsHashCode();
-      if (hash != null) {
-         HashingInputStream his = new HashingInputStream(Hashing.md5(), new JdbcInputStream(this, entity.getPayload().getChunks()));
-         HashCode actualHash = his.hash();
-         if (hash.equals(actualHash)) {
-            throw new IOException("MD5 hash code mismatch");
+   /**
+    * Stores the content of a buffer as a chunk, compressed if it gets smaller, unless
+    * deduplication is enabled and the same content is already stored. New chunks are added to the batch, so a shared chunk leaves
+    * its buffer free for the next one.
+    *
+    * @return the id of the chunk
+    */
+   private Long storeChunk(byte[] buffer, int size, List<ChunkEntity> batch) {
+      String hash = null;
+      if (deduplication) {
+         hash = Hashing.sha256().hashBytes(buffer, 0, size).toString();
+         Long id = chunkRepository.acquireChunk(hash, size);
+         if (id != null) {
+            return id;
          }
       }
+      byte[] chunkData = compression.encode(buffer, size);
+      ChunkCodec codec = compression;
+      if (chunkData == null) {
+         chunkData = size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+         codec = ChunkCodec.NONE;
+      }
+      ChunkEntity chunk = chunkRepository.create(new ChunkEntity(chunkData, size, hash, codec));
+      batch.add(chunk);
+      return chunk.getId();
+   }
+
+   private void releaseBatch(List<ChunkEntity> batch) {
+      chunkRepository.flush();
+      for (ChunkEntity chunk : batch) {
+         chunkRepository.detach(chunk);
+      }
+      batch.clear();
+   }
+
+   private void checkIntegrity(ContentMetadata contentMetadata, HashCode actualHash) throws IOException {
+      HashCode expectedHash = contentMetadata.getContentMD5AsHashCode();
+      if (expectedHash != null && !expectedHash.equals(actualHash)) {
+         throw new IOException("MD5 hash code mismatch");
+      }
+   }
+
+   private void logIngest(String containerName, String key, long bytes, long millis) {
+      if (logger.isDebugEnabled()) {
+         double megabytesPerSecond = millis == 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (millis / 1000.0);
+         logger.debug("<< stored %s/%s: %d bytes in %d ms (%.2f MB/s)", containerName, key, bytes, millis,
+               megabytesPerSecond);
+      }
+   }
+
+   static final class StoredData {
+      private final List<Long> chunks;
+      private final HashCode hash;
+      private final long size;
+
+      private StoredData(List<Long> chunks, HashCode hash, long size) {
+         this.chunks = chunks;
+         this.hash = hash;
+         this.size = size;
+      }
    }
 
 }
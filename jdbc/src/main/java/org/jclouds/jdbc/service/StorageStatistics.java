@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.service;
+
+import com.google.common.base.Objects;
+
+/**
+ * Space used by the chunks of the jdbc blobstore.
+ */
+public class StorageStatistics {
+
+   private final long chunkCount;
+   private final long storedBytes;
+   private final long logicalBytes;
+   private final long referencedBytes;
+
+   public StorageStatistics(long chunkCount, long storedBytes, long logicalBytes, long referencedBytes) {
+      this.chunkCount = chunkCount;
+      this.storedBytes = storedBytes;
+      this.logicalBytes = logicalBytes;
+      this.referencedBytes = referencedBytes;
+   }
+
+   /**
+    * Number of chunks stored in the database.
+    */
+   public long getChunkCount() {
+      return chunkCount;
+   }
+
+   /**
+    * Size of the chunks as stored in the database, compressed or not.
+    */
+   public long getStoredBytes() {
+      return storedBytes;
+   }
+
+   /**
+    * Size of the content of the stored chunks, each chunk being counted once.
+    */
+   public long getLogicalBytes() {
+      return logicalBytes;
+   }
+
+   /**
+    * Size of the content of all the payloads, shared chunks being counted once per reference.
+    */
+   public long getReferencedBytes() {
+      return referencedBytes;
+   }
+
+   /**
+    * Ratio between the content of the chunks and their stored size, 1 when nothing is
+    * compressed.
+    */
+   public double getCompressionRatio() {
+      return storedBytes == 0 ? 1 : (double) logicalBytes / storedBytes;
+   }
+
+   /**
+    * Ratio between the size of the payloads and the content of the chunks, 1 when nothing
+    * is shared.
+    */
+   public double getDeduplicationRatio() {
+      return logicalBytes == 0 ? 1 : (double) referencedBytes / logicalBytes;
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this)
+            .add("chunkCount", chunkCount)
+            .add("storedBytes", storedBytes)
+            .add("logicalBytes", logicalBytes)
+            .add("referencedBytes", referencedBytes)
+            .add("compressionRatio", getCompressionRatio())
+            .add("deduplicationRatio", getDeduplicationRatio())
+            .toString();
+   }
+
+}
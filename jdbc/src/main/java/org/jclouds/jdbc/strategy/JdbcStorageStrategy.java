@@ -20,34 +20,62 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.persistence.PersistenceException;
 
+import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.LocalStorageStrategy;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
 import org.jclouds.blobstore.domain.MutableStorageMetadata;
+import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.domain.internal.MutableStorageMetadataImpl;
+import org.jclouds.blobstore.domain.internal.PageSetImpl;
+import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LocationBuilder;
 import org.jclouds.domain.LocationScope;
 import org.jclouds.io.ContentMetadata;
-import org.jclouds.jdbc.conversion.BlobEntityToBlob;
+import org.jclouds.io.MutableContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.jdbc.conversion.BlobMetadataProjectionToBlob;
 import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.entity.BlobMetadataProjection;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
 import org.jclouds.jdbc.predicates.validators.JdbcBlobKeyValidator;
 import org.jclouds.jdbc.predicates.validators.JdbcContainerNameValidator;
+import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.util.BlobCache;
+import org.jclouds.jdbc.util.BlobCacheStatistics;
+import org.jclouds.jdbc.util.BlobKeys;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteSource;
+import com.google.common.net.HttpHeaders;
 
 /**
  * JdbcStorageStrategy implements a blob store that stores objects
@@ -56,23 +84,27 @@ import com.google.common.collect.ImmutableList;
  */
 public class JdbcStorageStrategy implements LocalStorageStrategy {
 
+   private static final int DEFAULT_MAX_RESULTS = 1000;
+
    private final Provider<BlobBuilder> blobBuilders;
    private final JdbcService jdbcService;
    private final JdbcContainerNameValidator jdbcContainerNameValidator;
    private final JdbcBlobKeyValidator jdbcBlobKeyValidator;
-   private final BlobEntityToBlob blobEntityToBlob;
+   private final BlobMetadataProjectionToBlob blobMetadataProjectionToBlob;
+   private final BlobCache blobCache;
    private final Location mockLocation;
 
    @Inject
    JdbcStorageStrategy(Provider<BlobBuilder> blobBuilders,
          JdbcContainerNameValidator jdbcContainerNameValidator, JdbcBlobKeyValidator jdbcBlobKeyValidator,
-         JdbcService jdbcService, BlobEntityToBlob blobEntityToBlob)
+         JdbcService jdbcService, BlobMetadataProjectionToBlob blobMetadataProjectionToBlob, BlobCache blobCache)
          throws ClassNotFoundException, IllegalAccessException, InstantiationException, SQLException {
       this.jdbcService = jdbcService;
       this.blobBuilders = blobBuilders;
       this.jdbcContainerNameValidator = jdbcContainerNameValidator;
       this.jdbcBlobKeyValidator = jdbcBlobKeyValidator;
-      this.blobEntityToBlob = blobEntityToBlob;
+      this.blobMetadataProjectionToBlob = blobMetadataProjectionToBlob;
+      this.blobCache = blobCache;
       this.mockLocation = new LocationBuilder()
             .id("jdbc")
             .scope(LocationScope.PROVIDER)
@@ -99,12 +131,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public Collection<String> getAllContainerNames() {
-      List<ContainerEntity> containerEntities = jdbcService.findAllContainers();
-      ImmutableList.Builder<String> result = ImmutableList.builder();
-      for (ContainerEntity c : containerEntities) {
-         result.add(c.getName());
-      }
-      return result.build();
+      return jdbcService.findContainerNames();
    }
 
    /**
@@ -163,8 +190,8 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void deleteContainer(String container) {
       jdbcContainerNameValidator.validate(container);
-      jdbcService.deleteBlobsByContainer(container);
-      jdbcService.deleteContainerByName(container);
+      jdbcService.deleteContainer(container);
+      blobCache.invalidateContainer(container);
    }
 
    /**
@@ -175,6 +202,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void clearContainer(String container) {
       jdbcService.deleteBlobsByContainer(container);
+      blobCache.invalidateContainer(container);
    }
 
    /**
@@ -187,6 +215,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    public void clearContainer(String container, ListContainerOptions options) {
       if (options.getDir() != null) {
          jdbcService.deleteBlobsByDirectory(container, options.getDir(), true);
+         blobCache.invalidateContainer(container);
       }
       else {
          clearContainer(container);
@@ -228,23 +257,106 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    }
 
    /**
-    * Lists all the blob keys in a container
+    * Lists all the blob keys in a container. The keys are streamed from the database in pages
+    * as the iterable is consumed, so callers stopping early only read the first pages.
     *
     * @param container the name of the container
-    * @return the blob keys inside the container
+    * @return the blob keys inside the container, in key order
     */
    @Override
    public Iterable<String> getBlobKeysInsideContainer(String container) throws IOException {
-      List<BlobEntity> blobEntities = jdbcService.findBlobsByContainer(container);
-      ImmutableList.Builder<String> result = ImmutableList.builder();
-      for (BlobEntity blobEntity : blobEntities) {
-         result.add(blobEntity.getKey());
+      return jdbcService.iterateBlobKeys(container, null);
+   }
+
+   /**
+    * Lists a page of the blobs in a container. The prefix, marker and page size are applied
+    * by the database, keys sharing a prefix up to the delimiter are folded into a single
+    * {@link StorageType#RELATIVE_PATH} entry, and the metadata of the blobs of each page is
+    * loaded with a single query. User metadata is only loaded for detailed listings.
+    *
+    * @param container the name of the container
+    * @param options the directory or prefix, delimiter, marker and maximum number of results
+    * @return the page of blobs and common prefixes, in key order
+    */
+   public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+      String directory = options.getDir();
+      String prefix = directory != null ? BlobKeys.directoryPrefix(directory)
+            : Strings.nullToEmpty(options.getPrefix());
+      String delimiter = options.getDelimiter() != null ? options.getDelimiter()
+            : (options.isRecursive() ? null : getSeparator());
+      int maxResults = options.getMaxResults() != null ? options.getMaxResults() : DEFAULT_MAX_RESULTS;
+      String marker = options.getMarker();
+      int pageSize = Math.min(maxResults, JdbcConstants.KEY_PAGE_SIZE - 1) + 1;
+
+      ImmutableList.Builder<StorageMetadata> contents = ImmutableList.builder();
+      String lastName = null;
+      int count = 0;
+      boolean truncated = false;
+      String cursor = marker;
+      List<String> keys;
+      do {
+         keys = jdbcService.findBlobKeys(container, prefix, cursor, pageSize);
+         Map<String, StorageType> entries = Maps.newLinkedHashMap();
+         for (String key : keys) {
+            cursor = key;
+            if (directory != null && key.equals(prefix)) {
+               continue;
+            }
+            String name = key;
+            StorageType type = StorageType.BLOB;
+            int index = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+            if (index >= 0) {
+               name = key.substring(0, index + delimiter.length());
+               type = StorageType.RELATIVE_PATH;
+            }
+            // A common prefix spans several keys and may have ended the previous page
+            if (name.equals(lastName) || (type == StorageType.RELATIVE_PATH && name.equals(marker))) {
+               continue;
+            }
+            if (count == maxResults) {
+               truncated = true;
+               break;
+            }
+            entries.put(name, type);
+            lastName = name;
+            count++;
+         }
+         contents.addAll(toStorageMetadata(container, entries, options.isDetailed()));
+      } while (!truncated && keys.size() == pageSize);
+      return new PageSetImpl<StorageMetadata>(contents.build(), truncated ? lastName : null);
+   }
+
+   private List<StorageMetadata> toStorageMetadata(String container, Map<String, StorageType> entries,
+         boolean detailed) {
+      List<String> blobKeys = Lists.newArrayList();
+      for (Map.Entry<String, StorageType> entry : entries.entrySet()) {
+         if (entry.getValue() == StorageType.BLOB) {
+            blobKeys.add(entry.getKey());
+         }
+      }
+      Map<String, BlobMetadataProjection> blobs = jdbcService.findBlobMetadata(container, blobKeys, detailed);
+      ImmutableList.Builder<StorageMetadata> metadata = ImmutableList.builder();
+      for (Map.Entry<String, StorageType> entry : entries.entrySet()) {
+         if (entry.getValue() == StorageType.BLOB) {
+            Blob blob = blobMetadataProjectionToBlob.apply(blobs.get(entry.getKey()));
+            // A blob removed since its key was listed is left out of the page
+            if (blob != null) {
+               metadata.add(blob.getMetadata());
+            }
+         } else {
+            MutableStorageMetadata prefixMetadata = new MutableStorageMetadataImpl();
+            prefixMetadata.setName(entry.getKey());
+            prefixMetadata.setType(entry.getValue());
+            prefixMetadata.setLocation(mockLocation);
+            metadata.add(prefixMetadata);
+         }
       }
-      return result.build();
+      return metadata.build();
    }
 
    /**
-    * Gets a blob in a container
+    * Gets a blob in a container. The metadata is always read from the database, and the content
+    * of small blobs is served from the blob cache while their etag is unchanged.
     *
     * @param container the name of the container containing the blob
     * @param key the key of the blob to get
@@ -252,7 +364,90 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public Blob getBlob(String container, String key) {
-      return blobEntityToBlob.apply(jdbcService.findBlobById(container, key));
+      BlobMetadataProjection metadata = jdbcService.findBlobMetadata(container, key);
+      Blob blob = blobMetadataProjectionToBlob.apply(metadata);
+      if (blob == null || blob.getPayload() == null) {
+         return blob;
+      }
+      MutableContentMetadata contentMetadata = blob.getPayload().getContentMetadata();
+      ByteSource content = (ByteSource) blob.getPayload().getRawContent();
+      ByteSource cachedContent = blobCache.get(container, key, metadata.getEtag(), metadata.getContentLength(),
+            content);
+      if (cachedContent != content) {
+         blob.setPayload(cachedContent);
+         blob.getPayload().setContentMetadata(contentMetadata);
+      }
+      return blob;
+   }
+
+   /**
+    * Gets a blob in a container, restricted to the byte ranges of the options. Ranges may be
+    * bounded ({@code "first-last"}), open ({@code "first-"}) or suffixes ({@code "-length"}),
+    * and only the chunks overlapping them are read.
+    *
+    * @param container the name of the container containing the blob
+    * @param key the key of the blob to get
+    * @param options the ranges to get
+    * @return the blob with the content of the ranges or null if the blob does not exist
+    */
+   public Blob getBlob(String container, String key, GetOptions options) {
+      return restrictToRanges(getBlob(container, key), options.getRanges());
+   }
+
+   /**
+    * Restricts the content of a blob returned by {@link #getBlob(String, String)} to byte ranges,
+    * so that only the chunks overlapping them are read.
+    *
+    * @param blob the blob, whose payload has not been read yet
+    * @param ranges the ranges to keep, in the format of {@link GetOptions#getRanges()}
+    * @return the same blob, or null if the blob is null
+    */
+   public Blob restrictToRanges(Blob blob, List<String> ranges) {
+      if (blob == null || blob.getPayload() == null || ranges.isEmpty()) {
+         return blob;
+      }
+      MutableContentMetadata contentMetadata = blob.getPayload().getContentMetadata();
+      long contentLength = contentMetadata.getContentLength();
+      ByteSource content = (ByteSource) blob.getPayload().getRawContent();
+      ImmutableList.Builder<ByteSource> slices = ImmutableList.builder();
+      long size = 0;
+      for (String range : ranges) {
+         long first;
+         long last = contentLength - 1;
+         if (range.startsWith("-")) {
+            first = Math.max(0, contentLength - Long.parseLong(range.substring(1)));
+         } else if (range.endsWith("-")) {
+            first = Long.parseLong(range.substring(0, range.length() - 1));
+         } else if (range.contains("-")) {
+            first = Long.parseLong(range.substring(0, range.indexOf('-')));
+            last = Math.min(last, Long.parseLong(range.substring(range.indexOf('-') + 1)));
+         } else {
+            throw new IllegalArgumentException("illegal range: " + range);
+         }
+         if (first >= contentLength || first > last) {
+            throw new IllegalArgumentException("range not satisfiable: " + range);
+         }
+         slices.add(content.slice(first, last - first + 1));
+         size += last - first + 1;
+         blob.getAllHeaders().put(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + contentLength);
+      }
+      blob.setPayload(ByteSource.concat(slices.build()));
+      blob.getPayload().setContentMetadata(contentMetadata);
+      contentMetadata.setContentLength(size);
+      contentMetadata.setContentMD5((HashCode) null);
+      return blob;
+   }
+
+   /**
+    * Gets the metadata of a blob without reading its content
+    *
+    * @param container the name of the container containing the blob
+    * @param key the key of the blob
+    * @return the blob's metadata or null if the blob does not exist
+    */
+   public BlobMetadata getBlobMetadata(String container, String key) {
+      Blob blob = blobMetadataProjectionToBlob.apply(jdbcService.findBlobMetadata(container, key));
+      return blob == null ? null : blob.getMetadata();
    }
 
    /**
@@ -267,9 +462,57 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
       String key = blob.getMetadata().getName();
       jdbcContainerNameValidator.validate(container);
       jdbcBlobKeyValidator.validate(key);
+      blobCache.invalidate(container, key);
       return jdbcService.createOrModifyBlob(container, blob).getEtag();
    }
 
+   /**
+    * Stores several blobs in a container at once. Their contents are written in one
+    * transaction and the blobs are published in another, so a batch of small blobs costs two
+    * commits instead of two per blob. Either all the blobs are stored or none is.
+    *
+    * @param container the name of the container
+    * @param blobs the blobs to store, a key given twice being stored in order
+    * @return the etag of each stored key, in the order of the blobs
+    */
+   public Map<String, String> putBlobs(String container, Iterable<? extends Blob> blobs) throws IOException {
+      jdbcContainerNameValidator.validate(container);
+      List<Blob> batch = ImmutableList.copyOf(blobs);
+      for (Blob blob : batch) {
+         jdbcBlobKeyValidator.validate(blob.getMetadata().getName());
+         blobCache.invalidate(container, blob.getMetadata().getName());
+      }
+      Map<String, String> etags = Maps.newLinkedHashMap();
+      for (BlobEntity blobEntity : jdbcService.createOrModifyBlobs(container, batch, null)) {
+         etags.put(blobEntity.getKey(), blobEntity.getEtag());
+      }
+      return etags;
+   }
+
+   /**
+    * Copies a blob without reading its content. The copy shares the chunks of the original in
+    * the database.
+    *
+    * @param fromContainer the name of the container of the original
+    * @param fromName the key of the original
+    * @param toContainer the name of the container of the copy
+    * @param toName the key of the copy
+    * @param options the content and user metadata replacing the ones of the original, if any
+    * @return the copy's etag
+    */
+   public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         CopyOptions options) {
+      jdbcContainerNameValidator.validate(toContainer);
+      jdbcBlobKeyValidator.validate(toName);
+      blobCache.invalidate(toContainer, toName);
+      BlobEntity blobEntity = jdbcService.copyBlob(fromContainer, fromName, toContainer, toName,
+            options.contentMetadata(), options.userMetadata());
+      if (blobEntity == null) {
+         throw new KeyNotFoundException(fromContainer, fromName, "while copying");
+      }
+      return blobEntity.getEtag();
+   }
+
    /**
     * Removes a blob from a container
     *
@@ -279,6 +522,23 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void removeBlob(String container, String key) {
       jdbcService.deleteBlob(container, key);
+      blobCache.invalidate(container, key);
+   }
+
+   /**
+    * Removes several blobs from a container in a single transaction
+    *
+    * @param container the name of the container containing the blobs
+    * @param keys the keys of the blobs
+    * @return the keys of the blobs that existed and were removed, the other keys being ignored
+    */
+   public Set<String> removeBlobs(String container, Iterable<String> keys) {
+      Set<String> requested = ImmutableSet.copyOf(keys);
+      Set<String> removed = ImmutableSet.copyOf(jdbcService.deleteBlobs(container, requested));
+      for (String key : requested) {
+         blobCache.invalidate(container, key);
+      }
+      return removed;
    }
 
    /**
@@ -290,7 +550,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public BlobAccess getBlobAccess(String container, String key) {
-      return jdbcService.findBlobById(container, key).getBlobAccess();
+      return jdbcService.findBlobAccess(container, key);
    }
 
    /**
@@ -333,8 +593,8 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     * @return the number of blobs in the container
     */
    public long countBlobs(String container, ListContainerOptions options) {
-      return options.getDir() == null ? jdbcService.findBlobsByContainer(container).size()
-             : jdbcService.findBlobsByDirectory(container, options.getDir(), options.isRecursive()).size();
+      return options.getDir() == null ? jdbcService.countBlobs(container, "", true)
+             : jdbcService.countBlobs(container, BlobKeys.directoryPrefix(options.getDir()), options.isRecursive());
    }
 
    /**
@@ -345,9 +605,8 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     * @return true if the directory exists, false otherwise
     */
    public boolean directoryExists(String container, String directory) {
-      Blob blob = getBlob(container, directory);
-      return blob != null && "application/directory".equals(
-            blob.getMetadata().getContentMetadata().getContentType());
+      BlobMetadataProjection metadata = jdbcService.findBlobMetadata(container, directory);
+      return metadata != null && "application/directory".equals(metadata.getContentType());
    }
 
    /**
@@ -387,10 +646,105 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     * @param directory the name of the directory to delete
     */
    public void deleteDirectory(String container, String directory) {
-      BlobEntity entity = jdbcService.findBlobById(container, directory);
-      if (entity != null && entity.isDirectory()) {
+      BlobMetadataProjection metadata = jdbcService.findBlobMetadata(container, directory);
+      if (metadata != null && metadata.isDirectory()) {
          jdbcService.deleteBlob(container, directory);
       }
    }
 
+   /**
+    * Starts a multipart upload. The parts are stored as they are uploaded, each in its own
+    * transaction, and only become a blob when the upload is completed.
+    *
+    * @param container the name of the container
+    * @param blobMetadata the metadata of the blob to create
+    * @param options the options of the upload, only the blob access is used
+    * @return the upload
+    */
+   public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blobMetadata, PutOptions options) {
+      jdbcContainerNameValidator.validate(container);
+      jdbcBlobKeyValidator.validate(blobMetadata.getName());
+      MultipartUploadEntity upload = jdbcService.createMultipartUpload(container, blobMetadata,
+            options == null ? null : options.getBlobAccess());
+      return MultipartUpload.create(container, blobMetadata.getName(), upload.getId(), blobMetadata, options);
+   }
+
+   /**
+    * Stores a part of a multipart upload. Parts may be uploaded concurrently, and uploading a
+    * part number again replaces the previous part.
+    *
+    * @param mpu the upload
+    * @param partNumber the number of the part, starting at 1
+    * @param payload the content of the part
+    * @return the part
+    */
+   public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) throws IOException {
+      return toMultipartPart(jdbcService.createMultipartPart(mpu.id(), partNumber, payload));
+   }
+
+   /**
+    * Lists the parts uploaded so far
+    *
+    * @param mpu the upload
+    * @return the parts ordered by part number
+    */
+   public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+      ImmutableList.Builder<MultipartPart> parts = ImmutableList.builder();
+      for (MultipartPartEntity part : jdbcService.findMultipartParts(mpu.id())) {
+         parts.add(toMultipartPart(part));
+      }
+      return parts.build();
+   }
+
+   /**
+    * Lists the multipart uploads in progress in a container
+    *
+    * @param container the name of the container
+    * @return the uploads, without their blob metadata
+    */
+   public List<MultipartUpload> listMultipartUploads(String container) {
+      ImmutableList.Builder<MultipartUpload> uploads = ImmutableList.builder();
+      for (MultipartUploadEntity upload : jdbcService.findMultipartUploads(container)) {
+         uploads.add(MultipartUpload.create(container, upload.getKey(), upload.getId(), null, null));
+      }
+      return uploads.build();
+   }
+
+   /**
+    * Completes a multipart upload, creating or replacing the blob. The chunks of the parts are
+    * reused as they are, so no content is copied.
+    *
+    * @param mpu the upload
+    * @param parts the parts to assemble
+    * @return the blob's etag
+    */
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+      SortedMap<Integer, String> partETags = Maps.newTreeMap();
+      for (MultipartPart part : parts) {
+         partETags.put(part.partNumber(), part.partETag());
+      }
+      blobCache.invalidate(mpu.containerName(), mpu.blobName());
+      return jdbcService.completeMultipartUpload(mpu.id(), partETags).getEtag();
+   }
+
+   /**
+    * Aborts a multipart upload, deleting the parts uploaded so far
+    *
+    * @param mpu the upload
+    */
+   public void abortMultipartUpload(MultipartUpload mpu) {
+      jdbcService.deleteMultipartUpload(mpu.id());
+   }
+
+   /**
+    * Returns the hits, misses and sizes of the cache of blob contents
+    */
+   public BlobCacheStatistics getBlobCacheStatistics() {
+      return blobCache.getStatistics();
+   }
+
+   private static MultipartPart toMultipartPart(MultipartPartEntity part) {
+      return MultipartPart.create(part.getPartNumber(), part.getSize(), part.getEtag(), part.getLastModified());
+   }
+
 }
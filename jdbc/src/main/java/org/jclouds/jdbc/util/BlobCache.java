@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.jdbc.config.JdbcProperties;
+import org.jclouds.jdbc.reference.JdbcConstants;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.io.ByteSource;
+import com.google.inject.Inject;
+
+/**
+ * Content of small blobs kept in direct buffers, outside of the heap. Entries are keyed by
+ * container and key and remember the etag of the content, so a blob replaced by another client
+ * of the database is never served stale: the caller always passes the etag it has just read.
+ */
+@Singleton
+public class BlobCache {
+
+   private long maximumSize = JdbcConstants.DEFAULT_BLOB_CACHE_SIZE;
+   private int maximumBlobSize = JdbcConstants.DEFAULT_BLOB_CACHE_MAX_BLOB_SIZE;
+   private Cache<Key, Entry> entries = newCache(maximumSize);
+
+   private final AtomicLong hitCount = new AtomicLong();
+   private final AtomicLong missCount = new AtomicLong();
+   private final AtomicLong evictionCount = new AtomicLong();
+   private final AtomicLong cachedBytes = new AtomicLong();
+   private final AtomicLong hitBytes = new AtomicLong();
+   private final AtomicLong loadedBytes = new AtomicLong();
+
+   @Inject(optional = true)
+   void setSize(@Named(JdbcProperties.BLOB_CACHE_SIZE) long size) {
+      checkArgument(size >= 0, "blob cache size must not be negative");
+      this.maximumSize = size;
+      this.entries = newCache(size);
+   }
+
+   @Inject(optional = true)
+   void setMaximumBlobSize(@Named(JdbcProperties.BLOB_CACHE_MAX_BLOB_SIZE) int maximumBlobSize) {
+      checkArgument(maximumBlobSize >= 0, "blob cache maximum blob size must not be negative");
+      this.maximumBlobSize = maximumBlobSize;
+   }
+
+   private Cache<Key, Entry> newCache(long size) {
+      return CacheBuilder.newBuilder()
+            .maximumWeight(size)
+            .weigher(new Weigher<Key, Entry>() {
+               @Override
+               public int weigh(Key key, Entry entry) {
+                  return entry.content.capacity();
+               }
+            })
+            .removalListener(new RemovalListener<Key, Entry>() {
+               @Override
+               public void onRemoval(RemovalNotification<Key, Entry> notification) {
+                  cachedBytes.addAndGet(-notification.getValue().content.capacity());
+                  if (notification.wasEvicted()) {
+                     evictionCount.incrementAndGet();
+                  }
+               }
+            })
+            .build();
+   }
+
+   /**
+    * Returns the content of a blob backed by the cache. Nothing is read until the content is
+    * opened, so looking up the metadata of a blob never fills the cache: on the first read the
+    * given content is read in full and cached, provided it has the expected length. Blobs
+    * without etag or larger than {@link JdbcProperties#BLOB_CACHE_MAX_BLOB_SIZE} are not cached
+    * and their content is returned as is.
+    *
+    * @param container the name of the container of the blob
+    * @param key the key of the blob
+    * @param etag the current etag of the blob
+    * @param contentLength the size of the content, if known
+    * @param content the content, read on a miss
+    */
+   public ByteSource get(String container, String key, @Nullable String etag, @Nullable Long contentLength,
+         ByteSource content) {
+      if (maximumSize == 0 || etag == null || contentLength == null || contentLength > maximumBlobSize) {
+         return content;
+      }
+      return new CachedByteSource(new Key(container, key), etag, contentLength, content);
+   }
+
+   private ByteSource load(Key cacheKey, String etag, long contentLength, ByteSource content) throws IOException {
+      Entry entry = entries.getIfPresent(cacheKey);
+      if (entry != null && entry.etag.equals(etag)) {
+         hitCount.incrementAndGet();
+         hitBytes.addAndGet(entry.content.capacity());
+         return new ByteBufferByteSource(entry.content);
+      }
+      missCount.incrementAndGet();
+      byte[] bytes = content.read();
+      if (bytes.length != contentLength) {
+         throw new IOException(String.format("content of blob %s in container %s changed while being read:"
+               + " expected %s bytes, found %s", cacheKey.key, cacheKey.container, contentLength, bytes.length));
+      }
+      ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+      buffer.put(bytes).flip();
+      cachedBytes.addAndGet(bytes.length);
+      loadedBytes.addAndGet(bytes.length);
+      entries.put(cacheKey, new Entry(etag, buffer.asReadOnlyBuffer()));
+      return ByteSource.wrap(bytes);
+   }
+
+   /**
+    * Drops the content of a blob.
+    */
+   public void invalidate(String container, String key) {
+      entries.invalidate(new Key(container, key));
+   }
+
+   /**
+    * Drops the content of all the blobs of a container.
+    */
+   public void invalidateContainer(String container) {
+      for (Iterator<Key> keys = entries.asMap().keySet().iterator(); keys.hasNext();) {
+         if (keys.next().container.equals(container)) {
+            keys.remove();
+         }
+      }
+   }
+
+   public BlobCacheStatistics getStatistics() {
+      return new BlobCacheStatistics(hitCount.get(), missCount.get(), evictionCount.get(), entries.size(),
+            cachedBytes.get(), hitBytes.get(), loadedBytes.get());
+   }
+
+   private static final class Key {
+      private final String container;
+      private final String key;
+
+      Key(String container, String key) {
+         this.container = container;
+         this.key = key;
+      }
+
+      @Override
+      public boolean equals(Object object) {
+         if (!(object instanceof Key)) {
+            return false;
+         }
+         Key that = (Key) object;
+         return container.equals(that.container) && key.equals(that.key);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(container, key);
+      }
+   }
+
+   private static final class Entry {
+      private final String etag;
+      private final ByteBuffer content;
+
+      Entry(String etag, ByteBuffer content) {
+         this.etag = etag;
+         this.content = content;
+      }
+   }
+
+   /**
+    * Content of a blob that goes through the cache each time it is opened.
+    */
+   private final class CachedByteSource extends ByteSource {
+      private final Key cacheKey;
+      private final String etag;
+      private final long contentLength;
+      private final ByteSource content;
+
+      CachedByteSource(Key cacheKey, String etag, long contentLength, ByteSource content) {
+         this.cacheKey = cacheKey;
+         this.etag = etag;
+         this.contentLength = contentLength;
+         this.content = content;
+      }
+
+      @Override
+      public InputStream openStream() throws IOException {
+         return load(cacheKey, etag, contentLength, content).openStream();
+      }
+
+      @Override
+      public byte[] read() throws IOException {
+         return load(cacheKey, etag, contentLength, content).read();
+      }
+
+      @Override
+      public long size() {
+         return contentLength;
+      }
+   }
+
+   /**
+    * Reads a shared buffer through its own duplicate, so concurrent readers do not move each
+    * other's position.
+    */
+   private static final class ByteBufferByteSource extends ByteSource {
+      private final ByteBuffer content;
+
+      ByteBufferByteSource(ByteBuffer content) {
+         this.content = content;
+      }
+
+      @Override
+      public InputStream openStream() {
+         final ByteBuffer buffer = content.duplicate();
+         return new InputStream() {
+            @Override
+            public int read() {
+               return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+               if (length == 0) {
+                  return 0;
+               }
+               if (!buffer.hasRemaining()) {
+                  return -1;
+               }
+               int count = Math.min(length, buffer.remaining());
+               buffer.get(bytes, offset, count);
+               return count;
+            }
+
+            @Override
+            public long skip(long count) {
+               int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+               buffer.position(buffer.position() + skipped);
+               return skipped;
+            }
+
+            @Override
+            public int available() {
+               return buffer.remaining();
+            }
+         };
+      }
+
+      @Override
+      public long size() {
+         return content.capacity();
+      }
+   }
+
+}
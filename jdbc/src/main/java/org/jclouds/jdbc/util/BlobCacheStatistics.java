@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import com.google.common.base.Objects;
+
+/**
+ * Use of the cache of blob contents.
+ */
+public class BlobCacheStatistics {
+
+   private final long hitCount;
+   private final long missCount;
+   private final long evictionCount;
+   private final long cachedBlobs;
+   private final long cachedBytes;
+   private final long hitBytes;
+   private final long loadedBytes;
+
+   public BlobCacheStatistics(long hitCount, long missCount, long evictionCount, long cachedBlobs, long cachedBytes,
+         long hitBytes, long loadedBytes) {
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.evictionCount = evictionCount;
+      this.cachedBlobs = cachedBlobs;
+      this.cachedBytes = cachedBytes;
+      this.hitBytes = hitBytes;
+      this.loadedBytes = loadedBytes;
+   }
+
+   /**
+    * Number of reads served from the cache.
+    */
+   public long getHitCount() {
+      return hitCount;
+   }
+
+   /**
+    * Number of reads of cacheable blobs that went to the database, including the reads of
+    * blobs whose etag had changed.
+    */
+   public long getMissCount() {
+      return missCount;
+   }
+
+   /**
+    * Ratio of the reads of cacheable blobs served from the cache, 1 when there was no read.
+    */
+   public double getHitRate() {
+      long requestCount = hitCount + missCount;
+      return requestCount == 0 ? 1 : (double) hitCount / requestCount;
+   }
+
+   /**
+    * Number of blobs dropped to make room for others.
+    */
+   public long getEvictionCount() {
+      return evictionCount;
+   }
+
+   /**
+    * Number of blobs currently in the cache.
+    */
+   public long getCachedBlobs() {
+      return cachedBlobs;
+   }
+
+   /**
+    * Size of the content currently in the cache, held outside of the heap.
+    */
+   public long getCachedBytes() {
+      return cachedBytes;
+   }
+
+   /**
+    * Size of the content served from the cache.
+    */
+   public long getHitBytes() {
+      return hitBytes;
+   }
+
+   /**
+    * Size of the content read from the database to fill the cache.
+    */
+   public long getLoadedBytes() {
+      return loadedBytes;
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this)
+            .add("hitCount", hitCount)
+            .add("missCount", missCount)
+            .add("hitRate", getHitRate())
+            .add("evictionCount", evictionCount)
+            .add("cachedBlobs", cachedBlobs)
+            .add("cachedBytes", cachedBytes)
+            .add("hitBytes", hitBytes)
+            .add("loadedBytes", loadedBytes)
+            .toString();
+   }
+
+}
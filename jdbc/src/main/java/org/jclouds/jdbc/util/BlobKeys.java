@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import org.jclouds.javax.annotation.Nullable;
+
+/**
+ * Helpers to reason about blob keys as paths.
+ */
+public final class BlobKeys {
+
+   public static final String SEPARATOR = "/";
+
+   /**
+    * Returns the prefix shared by every key inside a directory. The root directory, named
+    * by an empty string, has an empty prefix.
+    */
+   public static String directoryPrefix(String directory) {
+      return directory.isEmpty() || directory.endsWith(SEPARATOR) ? directory : directory + SEPARATOR;
+   }
+
+   /**
+    * Returns the smallest string greater than every string starting with the prefix, or null
+    * if there is none, so that a prefix match can be expressed as a key range.
+    */
+   @Nullable
+   public static String prefixUpperBound(String prefix) {
+      StringBuilder bound = new StringBuilder(prefix);
+      while (bound.length() > 0) {
+         int last = bound.length() - 1;
+         char c = bound.charAt(last);
+         if (c < Character.MAX_VALUE) {
+            bound.setCharAt(last, (char) (c + 1));
+            return bound.toString();
+         }
+         bound.setLength(last);
+      }
+      return null;
+   }
+
+   private BlobKeys() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The chunks of a payload covering a byte range, the number of bytes to skip in the first
+ * one to reach the start of the range, and the size of the whole payload according to its
+ * chunk list.
+ */
+public class ChunkRange {
+
+   private final List<Long> chunkIds;
+   private final long skip;
+   private final long payloadSize;
+
+   public ChunkRange(List<Long> chunkIds, long skip, long payloadSize) {
+      this.chunkIds = ImmutableList.copyOf(chunkIds);
+      this.skip = skip;
+      this.payloadSize = payloadSize;
+   }
+
+   public List<Long> getChunkIds() {
+      return chunkIds;
+   }
+
+   public long getSkip() {
+      return skip;
+   }
+
+   /**
+    * Returns the sum of the sizes of all the chunks of the payload, not only the selected ones.
+    */
+   public long getPayloadSize() {
+      return payloadSize;
+   }
+
+   /**
+    * Selects the chunks covering a byte range of a payload from the sizes of its chunks.
+    *
+    * @param chunkIds the chunk ids of the payload, in content order
+    * @param chunkSizes the decoded sizes of the same chunks
+    * @param offset the first byte of the range
+    * @param length the length of the range, which may extend past the end of the payload
+    */
+   public static ChunkRange select(List<Long> chunkIds, List<Integer> chunkSizes, long offset, long length) {
+      checkArgument(chunkIds.size() == chunkSizes.size(), "there must be one size per chunk");
+      checkArgument(offset >= 0, "offset must not be negative");
+      checkArgument(length >= 0, "length must not be negative");
+      long end = length > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + length;
+      ImmutableList.Builder<Long> selected = ImmutableList.builder();
+      long skip = 0;
+      boolean first = true;
+      long start = 0;
+      for (int i = 0; i < chunkIds.size(); i++) {
+         long chunkEnd = start + chunkSizes.get(i);
+         if (chunkEnd > offset && start < end) {
+            if (first) {
+               skip = offset - start;
+               first = false;
+            }
+            selected.add(chunkIds.get(i));
+         }
+         start = chunkEnd;
+      }
+      return new ChunkRange(selected.build(), skip, start);
+   }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.jdbc.service.JdbcService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Content of a blob stored in the database. The chunk list of the payload is only fetched
+ * when a stream is opened, so building a blob from its metadata does not touch the chunks.
+ * A slice only fetches and decodes the chunks overlapping its range. When the size of the
+ * content is known, opening a stream fails if the chunk list does not add up to it, which
+ * happens when the blob was replaced or removed since its metadata was read.
+ */
+public class JdbcByteSource extends ByteSource {
+
+   private final JdbcService jdbcService;
+   private final Long payloadId;
+   private final Long size;
+   private final int readAhead;
+   private final long offset;
+   private final long length;
+
+   public JdbcByteSource(JdbcService jdbcService, Long payloadId, @Nullable Long size, int readAhead) {
+      this(jdbcService, payloadId, size, readAhead, 0, Long.MAX_VALUE);
+   }
+
+   private JdbcByteSource(JdbcService jdbcService, Long payloadId, @Nullable Long size, int readAhead, long offset,
+         long length) {
+      this.jdbcService = checkNotNull(jdbcService, "jdbcService");
+      this.payloadId = checkNotNull(payloadId, "payloadId");
+      this.size = size;
+      this.readAhead = readAhead;
+      this.offset = offset;
+      this.length = length;
+   }
+
+   @Override
+   public InputStream openStream() throws IOException {
+      ChunkRange range = jdbcService.findChunkRange(payloadId, offset, length);
+      if (size != null && range.getPayloadSize() != size) {
+         throw new IOException(String.format("content of payload %s changed while being read: expected %s bytes,"
+               + " found %s", payloadId, size, range.getPayloadSize()));
+      }
+      InputStream in = new JdbcInputStream(jdbcService, range.getChunkIds(), readAhead);
+      if (offset == 0 && length == Long.MAX_VALUE) {
+         return in;
+      }
+      ByteStreams.skipFully(in, range.getSkip());
+      return ByteStreams.limit(in, length);
+   }
+
+   @Override
+   public ByteSource slice(long offset, long length) {
+      checkArgument(offset >= 0, "offset (%s) may not be negative", offset);
+      checkArgument(length >= 0, "length (%s) may not be negative", length);
+      long maxLength = this.length - offset;
+      return new JdbcByteSource(jdbcService, payloadId, size, readAhead, this.offset + offset,
+            maxLength <= 0 ? 0 : Math.min(length, maxLength));
+   }
+
+   @Override
+   public long size() throws IOException {
+      if (size == null) {
+         return super.size();
+      }
+      long remaining = Math.max(0, size - offset);
+      return Math.min(remaining, length);
+   }
+
+}
@@ -16,29 +16,48 @@
  */
 package org.jclouds.jdbc.util;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.service.JdbcService;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 
+/**
+ * Streams the chunks of a blob payload. Chunks are fetched from the database in groups of
+ * {@code readAhead} ids with a single query, so reading a payload costs one round trip per
+ * group instead of one per chunk. Encoded chunks are decoded one at a time, as they are reached.
+ */
 public class JdbcInputStream extends InputStream {
 
    private JdbcService jdbcService;
 
    private final List<Long> chunks;
+   private final int readAhead;
+   private final Map<Long, ChunkEntity> prefetchedChunks = Maps.newHashMap();
+   private int nextChunk;
    private ChunkEntity currentChunk;
+   private byte[] currentData;
    private int bytesRead;
 
    public JdbcInputStream(JdbcService jdbcService, List<Long> chunks) {
+      this(jdbcService, chunks, JdbcConstants.DEFAULT_READ_AHEAD_CHUNKS);
+   }
+
+   public JdbcInputStream(JdbcService jdbcService, List<Long> chunks, int readAhead) {
       this.jdbcService = checkNotNull(jdbcService, "jdbcService");
-      // Need to remove duplicates due to https://hibernate.atlassian.net/browse/HHH-6783
-      this.chunks = new ArrayList<Long>(new LinkedHashSet<Long>(checkNotNull(chunks, "chunks")));
+      this.chunks = ImmutableList.copyOf(checkNotNull(chunks, "chunks"));
+      checkArgument(readAhead > 0, "readAhead must be positive");
+      this.readAhead = readAhead;
       try {
          readNextChunk();
       } catch (IOException e) {
@@ -51,7 +70,7 @@ public class JdbcInputStream extends InputStream {
       if (hasFinished()) {
          return -1;
       }
-      int b = currentChunk.getData()[bytesRead] & 0xff;
+      int b = currentData[bytesRead] & 0xff;
       bytesRead = bytesRead + 1;
       if (bytesRead >= currentChunk.getSize()) {
          readNextChunk();
@@ -59,19 +78,80 @@ public class JdbcInputStream extends InputStream {
       return b;
    }
 
+   @Override
+   public synchronized int read(byte[] b, int off, int len) throws IOException {
+      checkPositionIndexes(off, off + len, b.length);
+      if (len == 0) {
+         return 0;
+      }
+      if (hasFinished()) {
+         return -1;
+      }
+      int total = 0;
+      while (total < len && !hasFinished()) {
+         int count = Math.min(len - total, currentChunk.getSize() - bytesRead);
+         System.arraycopy(currentData, bytesRead, b, off + total, count);
+         bytesRead = bytesRead + count;
+         total = total + count;
+         if (bytesRead >= currentChunk.getSize()) {
+            readNextChunk();
+         }
+      }
+      return total;
+   }
+
+   /**
+    * Skips bytes without copying them.
+    */
+   @Override
+   public synchronized long skip(long n) throws IOException {
+      long skipped = 0;
+      while (skipped < n && !hasFinished()) {
+         int count = (int) Math.min(n - skipped, currentChunk.getSize() - bytesRead);
+         bytesRead = bytesRead + count;
+         skipped = skipped + count;
+         if (bytesRead >= currentChunk.getSize()) {
+            readNextChunk();
+         }
+      }
+      return skipped;
+   }
+
+   @Override
+   public synchronized int available() {
+      return currentChunk == null ? 0 : currentChunk.getSize() - bytesRead;
+   }
+
    private boolean hasFinished() {
-      return currentChunk == null || (chunks.size() == 0 && bytesRead >= currentChunk.getSize());
+      return currentChunk == null || (nextChunk >= chunks.size() && bytesRead >= currentChunk.getSize());
    }
 
    private void readNextChunk() throws IOException {
-      if (chunks.size() > 0) {
-         this.currentChunk = jdbcService.findChunkById(chunks.get(0));
+      if (nextChunk < chunks.size()) {
+         Long id = chunks.get(nextChunk);
+         if (!prefetchedChunks.containsKey(id)) {
+            prefetchChunks();
+         }
+         this.currentChunk = prefetchedChunks.get(id);
          if (currentChunk == null) {
             throw new IOException("Could not find chunk.");
          }
-         chunks.remove(0);
+         this.currentData = currentChunk.decodeData();
+         this.nextChunk = nextChunk + 1;
          this.bytesRead = 0;
       }
    }
 
+   private void prefetchChunks() {
+      List<Long> ids = new ArrayList<Long>(chunks.subList(nextChunk, Math.min(nextChunk + readAhead, chunks.size())));
+      // A shared chunk may appear several times in a payload, so a group is kept until the next one
+      prefetchedChunks.clear();
+      List<ChunkEntity> fetched = jdbcService.findChunksByIds(ids);
+      if (fetched != null) {
+         for (ChunkEntity chunk : fetched) {
+            prefetchedChunks.put(chunk.getId(), chunk);
+         }
+      }
+   }
+
 }
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+
+/**
+ * Keys read page by page in key order, each page starting after the last key of the previous
+ * one. Only the current page is held in memory and each page is read by its own query, so
+ * iterating over a large container neither keeps a connection open nor loads all its keys.
+ * Keys added or removed during the iteration are seen or not depending on whether their page
+ * has already been read.
+ */
+public abstract class KeyIterable implements Iterable<String> {
+
+   private final int pageSize;
+
+   protected KeyIterable(int pageSize) {
+      checkArgument(pageSize > 0, "page size must be positive");
+      this.pageSize = pageSize;
+   }
+
+   /**
+    * Reads a page of keys in key order.
+    *
+    * @param marker only return keys after this one, null for the first page
+    * @param maxResults maximum number of keys to return
+    */
+   protected abstract List<String> findPage(@Nullable String marker, int maxResults);
+
+   @Override
+   public Iterator<String> iterator() {
+      return new AbstractIterator<String>() {
+         private Iterator<String> page = Iterators.emptyIterator();
+         private String marker;
+         private boolean lastPage;
+
+         @Override
+         protected String computeNext() {
+            while (!page.hasNext()) {
+               if (lastPage) {
+                  return endOfData();
+               }
+               List<String> keys = findPage(marker, pageSize);
+               lastPage = keys.size() < pageSize;
+               if (!keys.isEmpty()) {
+                  marker = keys.get(keys.size() - 1);
+               }
+               page = keys.iterator();
+            }
+            return page.next();
+         }
+      };
+   }
+
+}
@@ -17,10 +17,13 @@
 package org.jclouds.jdbc;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteSource;
+import com.google.common.net.HttpHeaders;
 import com.google.inject.Module;
 import com.google.inject.persist.PersistService;
 import com.google.inject.persist.jpa.JpaPersistModule;
@@ -29,17 +32,27 @@ import org.jclouds.blobstore.BlobRequestSigner;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
 import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.io.ByteStreams2;
 import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
 import org.jclouds.io.payloads.PhantomPayload;
 import org.jclouds.io.payloads.StringPayload;
+import org.jclouds.jdbc.blobstore.JdbcBlobStore;
+import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.util.Closeables2;
 import org.jclouds.util.Strings2;
 import org.testng.annotations.AfterMethod;
@@ -48,6 +61,7 @@ import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -210,6 +224,112 @@ public abstract class BaseJdbcBlobStoreTest {
       checkForContainerContent(CONTAINER_NAME, "rrr/", blobsExpected);
    }
 
+   @Test
+   public void testListPages() {
+      assertThat(blobStore).isInstanceOf(JdbcBlobStore.class);
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      List<String> blobNames = createBlobsInContainer(CONTAINER_NAME, "a", 5);
+
+      PageSet<? extends StorageMetadata> page = blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.maxResults(2));
+      assertThat(names(page)).containsExactly("a0", "a1");
+      assertThat(page.getNextMarker()).isEqualTo("a1");
+      BlobMetadata metadata = (BlobMetadata) page.iterator().next();
+      assertThat(metadata.getType()).isEqualTo(StorageType.BLOB);
+      assertThat(metadata.getSize()).isEqualTo(1024L);
+      assertThat(metadata.getETag()).isEqualTo(blobStore.blobMetadata(CONTAINER_NAME, "a0").getETag());
+
+      page = blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.afterMarker("a1").maxResults(5));
+      assertThat(names(page)).containsExactlyElementsOf(blobNames.subList(2, 5));
+      assertThat(page.getNextMarker()).isNull();
+   }
+
+   @Test
+   public void testListAndCountDirectory() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      createBlobInContainer(CONTAINER_NAME, "dir/a");
+      createBlobInContainer(CONTAINER_NAME, "dir/b");
+      createBlobInContainer(CONTAINER_NAME, "dir/sub/c");
+      createBlobInContainer(CONTAINER_NAME, "other");
+
+      PageSet<? extends StorageMetadata> page = blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.inDirectory("dir"));
+      assertThat(names(page)).containsExactly("dir/a", "dir/b", "dir/sub/");
+      assertThat(Iterables.getLast(page).getType()).isEqualTo(StorageType.RELATIVE_PATH);
+      assertThat(names(blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir").recursive())))
+            .containsExactly("dir/a", "dir/b", "dir/sub/c");
+
+      assertThat(blobStore.countBlobs(CONTAINER_NAME)).isEqualTo(4);
+      assertThat(blobStore.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir"))).isEqualTo(2);
+      assertThat(blobStore.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir").recursive()))
+            .isEqualTo(3);
+   }
+
+   @Test
+   public void testListDetailsLoadsUserMetadata() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(BLOB_NAME).payload("content")
+            .userMetadata(ImmutableMap.of("owner", "jclouds")).build());
+
+      BlobMetadata metadata = (BlobMetadata) Iterables.getOnlyElement(blobStore.list(CONTAINER_NAME));
+      assertThat(metadata.getUserMetadata()).isEmpty();
+      metadata = (BlobMetadata) Iterables.getOnlyElement(blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.withDetails()));
+      assertThat(metadata.getUserMetadata()).containsEntry("owner", "jclouds");
+   }
+
+   @Test
+   public void testCopyBlob() throws IOException {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      ByteSource content = randomByteSource().slice(0, 1024);
+      blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(BLOB_NAME).payload(content)
+            .userMetadata(ImmutableMap.of("a", "b")).build());
+
+      String etag = blobStore.copyBlob(CONTAINER_NAME, BLOB_NAME, CONTAINER_NAME, BLOB_NAME + "-copy",
+            CopyOptions.builder().userMetadata(ImmutableMap.of("c", "d")).build());
+      Blob copy = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME + "-copy");
+      assertThat(copy.getMetadata().getETag()).isEqualTo(etag);
+      assertThat(copy.getMetadata().getUserMetadata()).isEqualTo(ImmutableMap.of("c", "d"));
+      assertThat(ByteStreams2.toByteArrayAndClose(copy.getPayload().openStream())).isEqualTo(content.read());
+   }
+
+   @Test(expectedExceptions = KeyNotFoundException.class)
+   public void testCopyMissingBlob() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      blobStore.copyBlob(CONTAINER_NAME, BLOB_NAME, CONTAINER_NAME, BLOB_NAME + "-copy", CopyOptions.NONE);
+   }
+
+   @Test
+   public void testMultipartUpload() throws IOException {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      ByteSource part1 = randomByteSource().slice(0, 1024 * 1024 + 1);
+      ByteSource part2 = randomByteSource().slice(0, 17);
+      BlobMetadata metadata = blobStore.blobBuilder(BLOB_NAME).payload(new byte[0]).contentType("text/plain")
+            .build().getMetadata();
+
+      MultipartUpload mpu = blobStore.initiateMultipartUpload(CONTAINER_NAME, metadata, PutOptions.NONE);
+      blobStore.uploadMultipartPart(mpu, 1, Payloads.newByteSourcePayload(part1));
+      blobStore.uploadMultipartPart(mpu, 2, Payloads.newByteSourcePayload(part2));
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).hasSize(1);
+      // The parts are not stored as blobs of the container
+      assertThat(blobStore.list(CONTAINER_NAME)).isEmpty();
+
+      List<MultipartPart> parts = blobStore.listMultipartUpload(mpu);
+      assertThat(parts).hasSize(2);
+      String etag = blobStore.completeMultipartUpload(mpu, parts);
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      Blob blob = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getETag()).isEqualTo(etag);
+      assertThat(blob.getMetadata().getContentMetadata().getContentType()).isEqualTo("text/plain");
+      assertThat(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()))
+            .isEqualTo(ByteSource.concat(part1, part2).read());
+
+      MultipartUpload aborted = blobStore.initiateMultipartUpload(CONTAINER_NAME, metadata, PutOptions.NONE);
+      blobStore.uploadMultipartPart(aborted, 1, Payloads.newByteSourcePayload(part2));
+      blobStore.abortMultipartUpload(aborted);
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+   }
+
    @Test
    public void testClearContainerNotExistingContainer() {
       blobStore.clearContainer(CONTAINER_NAME);
@@ -301,6 +421,17 @@ public abstract class BaseJdbcBlobStoreTest {
       assertFalse(result, "Blob2 still exists");
    }
 
+   @Test
+   public void testRemoveBlobs() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      for (String name : ImmutableList.of("a", "b", "c")) {
+         createBlobInContainer(CONTAINER_NAME, name);
+      }
+
+      blobStore.removeBlobs(CONTAINER_NAME, ImmutableList.of("a", "c", "missing"));
+      assertThat(names(blobStore.list(CONTAINER_NAME))).containsExactly("b");
+   }
+
    @Test
    public void testRemoveBlobComplexBlobKey() throws IOException {
       final String BLOB_KEY = createRandomBlobKey("aa/bb/cc/dd/", null);
@@ -622,6 +753,29 @@ public abstract class BaseJdbcBlobStoreTest {
       }
    }
 
+   @Test
+   public void testRangesAcrossChunks() throws IOException {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      byte[] content = randomByteSource().slice(0, 2 * JdbcConstants.DEFAULT_CHUNK_SIZE + 10).read();
+      blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder("test").payload(content).build());
+      int offset = JdbcConstants.DEFAULT_CHUNK_SIZE - 5;
+
+      Blob blob = blobStore.getBlob(CONTAINER_NAME, "test", GetOptions.Builder.range(offset, offset + 9));
+      assertThat(blob.getPayload().getContentMetadata().getContentLength()).isEqualTo(10);
+      assertThat(blob.getAllHeaders().get(HttpHeaders.CONTENT_RANGE))
+            .containsExactly("bytes " + offset + "-" + (offset + 9) + "/" + content.length);
+      assertThat(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()))
+            .isEqualTo(Arrays.copyOfRange(content, offset, offset + 10));
+      assertThat(blobStore.getBlob(CONTAINER_NAME, "missing", GetOptions.Builder.range(0, 1))).isNull();
+   }
+
+   @Test(expectedExceptions = HttpResponseException.class)
+   public void testRangeWithFailedCondition() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      String etag = blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder("test").payload("abcdefgh").build());
+      blobStore.getBlob(CONTAINER_NAME, "test", GetOptions.Builder.range(0, 1).ifETagDoesntMatch(etag));
+   }
+
    @Test
    public void testBlobRequestSigner() throws Exception {
       String containerName = "container";
@@ -670,6 +824,14 @@ public abstract class BaseJdbcBlobStoreTest {
       return blobNames;
    }
 
+   private static List<String> names(Iterable<? extends StorageMetadata> page) {
+      List<String> names = Lists.newArrayList();
+      for (StorageMetadata metadata : page) {
+         names.add(metadata.getName());
+      }
+      return names;
+   }
+
    private void checkForContainerContent(final String containerName, List<String> expectedBlobKeys) {
       checkForContainerContent(containerName, null, expectedBlobKeys);
    }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc;
+
+import com.google.common.io.ByteSource;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.name.Names;
+import org.jclouds.jdbc.config.JdbcProperties;
+import org.jclouds.jdbc.util.BlobCache;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test(groups = "unit", testName = "BlobCacheTest")
+public class BlobCacheTest {
+
+   private static final String CONTAINER_NAME = "container";
+   private static final String BLOB_NAME = "blob";
+   private static final ByteSource CONTENT = ByteSource.wrap("cached content".getBytes());
+
+   private BlobCache blobCache;
+
+   @BeforeMethod
+   public void setUp() {
+      blobCache = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(Names.named(JdbcProperties.BLOB_CACHE_SIZE)).to(1024L);
+         }
+      }).getInstance(BlobCache.class);
+   }
+
+   @Test
+   public void testContentIsCachedWhenRead() throws IOException {
+      ByteSource content = blobCache.get(CONTAINER_NAME, BLOB_NAME, "etag", CONTENT.size(), CONTENT);
+      assertThat(blobCache.getStatistics().getCachedBlobs()).isEqualTo(0);
+
+      assertThat(content.read()).isEqualTo(CONTENT.read());
+      assertThat(content.read()).isEqualTo(CONTENT.read());
+      assertThat(blobCache.getStatistics().getMissCount()).isEqualTo(1);
+      assertThat(blobCache.getStatistics().getHitCount()).isEqualTo(1);
+      assertThat(blobCache.getStatistics().getCachedBytes()).isEqualTo(CONTENT.size());
+   }
+
+   @Test
+   public void testContentOfUnexpectedLengthIsNotCached() throws IOException {
+      ByteSource content = blobCache.get(CONTAINER_NAME, BLOB_NAME, "etag", CONTENT.size() + 1, CONTENT);
+      try {
+         content.read();
+         throw new AssertionError("expected an IOException");
+      } catch (IOException expected) {
+         // the content changed after its metadata was read
+      }
+      assertThat(blobCache.getStatistics().getCachedBlobs()).isEqualTo(0);
+      assertThat(blobCache.getStatistics().getCachedBytes()).isEqualTo(0);
+   }
+
+   @Test
+   public void testReplacedContentIsReloaded() throws IOException {
+      blobCache.get(CONTAINER_NAME, BLOB_NAME, "etag", CONTENT.size(), CONTENT).read();
+      ByteSource newContent = ByteSource.wrap("new content".getBytes());
+      assertThat(blobCache.get(CONTAINER_NAME, BLOB_NAME, "new-etag", newContent.size(), newContent).read())
+            .isEqualTo(newContent.read());
+      assertThat(blobCache.getStatistics().getMissCount()).isEqualTo(2);
+   }
+
+}
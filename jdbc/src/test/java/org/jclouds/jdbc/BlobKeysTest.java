@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc;
+
+import org.jclouds.jdbc.util.BlobKeys;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test(groups = "unit", testName = "BlobKeysTest")
+public class BlobKeysTest {
+
+   @Test
+   public void testDirectoryPrefix() {
+      assertThat(BlobKeys.directoryPrefix("")).isEqualTo("");
+      assertThat(BlobKeys.directoryPrefix("dir")).isEqualTo("dir/");
+      assertThat(BlobKeys.directoryPrefix("dir/")).isEqualTo("dir/");
+   }
+
+   @Test
+   public void testPrefixUpperBound() {
+      assertThat(BlobKeys.prefixUpperBound("dir/")).isEqualTo("dir0");
+      assertThat(BlobKeys.prefixUpperBound("a" + Character.MAX_VALUE)).isEqualTo("b");
+      assertThat(BlobKeys.prefixUpperBound(String.valueOf(Character.MAX_VALUE))).isNull();
+      assertThat(BlobKeys.prefixUpperBound("")).isNull();
+   }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc;
+
+import com.google.common.collect.ImmutableList;
+import org.jclouds.jdbc.util.ChunkRange;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test(groups = "unit", testName = "ChunkRangeTest")
+public class ChunkRangeTest {
+
+   private static final List<Long> IDS = ImmutableList.of(1L, 2L, 3L, 4L);
+   private static final List<Integer> SIZES = ImmutableList.of(10, 10, 10, 5);
+
+   @Test
+   public void testRangeInsideOneChunk() {
+      ChunkRange range = ChunkRange.select(IDS, SIZES, 12, 5);
+      assertThat(range.getChunkIds()).containsExactly(2L);
+      assertThat(range.getSkip()).isEqualTo(2);
+      assertThat(range.getPayloadSize()).isEqualTo(35);
+   }
+
+   @Test
+   public void testRangeAcrossChunks() {
+      ChunkRange range = ChunkRange.select(IDS, SIZES, 10, 11);
+      assertThat(range.getChunkIds()).containsExactly(2L, 3L);
+      assertThat(range.getSkip()).isEqualTo(0);
+   }
+
+   @Test
+   public void testOpenRange() {
+      ChunkRange range = ChunkRange.select(IDS, SIZES, 29, Long.MAX_VALUE);
+      assertThat(range.getChunkIds()).containsExactly(3L, 4L);
+      assertThat(range.getSkip()).isEqualTo(9);
+   }
+
+   @Test
+   public void testRangePastEnd() {
+      ChunkRange range = ChunkRange.select(IDS, SIZES, 35, 10);
+      assertThat(range.getChunkIds()).isEmpty();
+      assertThat(range.getPayloadSize()).isEqualTo(35);
+   }
+
+}
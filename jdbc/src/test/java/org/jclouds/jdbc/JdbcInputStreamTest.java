@@ -17,6 +17,8 @@
 package org.jclouds.jdbc;
 
 import com.google.common.collect.ImmutableList;
+import org.jclouds.io.ByteStreams2;
+import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.service.JdbcService;
 import org.jclouds.jdbc.util.JdbcInputStream;
 import org.testng.annotations.BeforeMethod;
@@ -27,6 +29,8 @@ import java.io.IOException;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 
 @Test(groups = "unit", testName = "JdbcInputStreamTest")
 public class JdbcInputStreamTest {
@@ -56,4 +60,25 @@ public class JdbcInputStreamTest {
       assertThat(jdbcInputStream.read()).isEqualTo(-1);
    }
 
+   @Test
+   public void testBulkReadWithReadAhead() throws IOException {
+      ChunkEntity first = chunk(1L, "abc");
+      ChunkEntity second = chunk(2L, "def");
+      ChunkEntity third = chunk(3L, "gh");
+      expect(mockJdbcService.findChunksByIds(ImmutableList.of(1L, 2L))).andReturn(ImmutableList.of(second, first));
+      expect(mockJdbcService.findChunksByIds(ImmutableList.of(3L))).andReturn(ImmutableList.of(third));
+      replay(mockJdbcService);
+
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, ImmutableList.of(1L, 2L, 3L), 2);
+      assertThat(jdbcInputStream.read()).isEqualTo('a');
+      assertThat(new String(ByteStreams2.toByteArrayAndClose(jdbcInputStream), "US-ASCII")).isEqualTo("bcdefgh");
+      verify(mockJdbcService);
+   }
+
+   private static ChunkEntity chunk(Long id, String data) {
+      ChunkEntity chunk = new ChunkEntity(data.getBytes(), data.length());
+      chunk.setId(id);
+      return chunk;
+   }
+
 }
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.config;
+
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test(groups = "unit", testName = "JPAInitializerTest")
+public class JPAInitializerTest {
+
+   @Test
+   public void testParseOverrides() {
+      assertThat(JPAInitializer.parseOverrides(" hibernate.jdbc.batch_size = 8 ,, hibernate.jdbc.fetch_size=256,"))
+            .isEqualTo(ImmutableMap.of("hibernate.jdbc.batch_size", "8", "hibernate.jdbc.fetch_size", "256"));
+   }
+
+   @Test
+   public void testParseOverridesWithSeparatorsInValues() {
+      assertThat(JPAInitializer.parseOverrides("javax.persistence.jdbc.url=jdbc:h2:mem:db;CACHE_SIZE=1024,"
+            + "hibernate.hikari.connectionInitSql=SELECT 1\\, 2,path=C:\\\\data"))
+            .isEqualTo(ImmutableMap.of("javax.persistence.jdbc.url", "jdbc:h2:mem:db;CACHE_SIZE=1024",
+                  "hibernate.hikari.connectionInitSql", "SELECT 1, 2", "path", "C:\\data"));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testParseOverridesWithoutValue() {
+      JPAInitializer.parseOverrides("hibernate.jdbc.batch_size");
+   }
+
+}
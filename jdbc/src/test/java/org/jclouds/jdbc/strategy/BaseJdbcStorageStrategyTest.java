@@ -16,20 +16,42 @@
  */
 package org.jclouds.jdbc.strategy;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.persist.PersistService;
+import com.google.inject.name.Names;
 import com.google.inject.persist.jpa.JpaPersistModule;
+import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.io.ByteStreams2;
+import org.jclouds.io.Payloads;
+import org.jclouds.jdbc.config.JdbcProperties;
 import org.jclouds.jdbc.module.TestContextModule;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.service.StorageStatistics;
+import org.jclouds.jdbc.util.BlobCacheStatistics;
+import org.testng.Reporter;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -38,6 +60,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.jclouds.utils.TestUtils.randomByteSource;
@@ -46,6 +78,9 @@ public abstract class BaseJdbcStorageStrategyTest {
 
    private static final String CONTAINER_NAME = "jclouds-test-container";
    private static final String BLOB_NAME = "jclouds-test-blob";
+   // Matches the connection pool size of the test persistence units
+   private static final int WRITER_THREADS = 8;
+   private static final int WRITES_PER_THREAD = 10;
 
    private final String jpaModuleName;
 
@@ -58,7 +93,14 @@ public abstract class BaseJdbcStorageStrategyTest {
 
    @BeforeMethod
    protected void setUp() throws Exception {
-      injector = Guice.createInjector(ImmutableSet.<Module> of(new TestContextModule(), new JpaPersistModule(jpaModuleName)));
+      createInjector();
+   }
+
+   private void createInjector(Module... modules) {
+      injector = Guice.createInjector(ImmutableSet.<Module> builder()
+            .add(new TestContextModule(), new JpaPersistModule(jpaModuleName))
+            .add(modules)
+            .build());
       storageStrategy = injector.getInstance(JdbcStorageStrategy.class);
    }
 
@@ -105,6 +147,48 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
    }
 
+   @Test
+   public void testContainerCache() throws IOException {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      putSmallBlob(BLOB_NAME);
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isTrue();
+      assertThat(jdbcService.getContainerCacheStats().hitCount()).isGreaterThan(0);
+
+      storageStrategy.setContainerAccess(CONTAINER_NAME, ContainerAccess.PUBLIC_READ);
+      assertThat(storageStrategy.getContainerAccess(CONTAINER_NAME)).isEqualTo(ContainerAccess.PUBLIC_READ);
+
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+   }
+
+   @Test
+   public void testContainerCacheConcurrentDeleteAndLookup() throws Exception {
+      final JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      runConcurrently(WRITER_THREADS, new Writer() {
+         @Override
+         public void write(int thread, int iteration) throws IOException {
+            if (thread == 0) {
+               storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null);
+               storageStrategy.deleteContainer(CONTAINER_NAME);
+            } else {
+               for (int i = 0; i < 10; i++) {
+                  jdbcService.findContainerByName(CONTAINER_NAME);
+               }
+            }
+         }
+      });
+
+      // A lookup racing with the last delete must not have cached the deleted container
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      putSmallBlob(BLOB_NAME);
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isTrue();
+   }
+
    @Test
    public void testGetAllContainerNames() {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME + "1", null, null)).isTrue();
@@ -137,6 +221,26 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isTrue();
    }
 
+   @Test
+   public void testPutBlobs() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      putSmallBlob(BLOB_NAME + "0");
+      List<Blob> blobs = Lists.newArrayList();
+      for (int i = 0; i < 100; i++) {
+         blobs.add(new BlobBuilderImpl().name(BLOB_NAME + i).payload(randomByteSource().slice(0, 1024)).build());
+      }
+      Map<String, String> etags = storageStrategy.putBlobs(CONTAINER_NAME, blobs);
+      assertThat(etags).hasSize(100);
+      for (Blob blob : blobs) {
+         String key = blob.getMetadata().getName();
+         Blob stored = storageStrategy.getBlob(CONTAINER_NAME, key);
+         assertThat(stored.getMetadata().getETag()).isEqualTo(etags.get(key));
+         assertThat(ByteStreams2.toByteArrayAndClose(stored.getPayload().openStream()))
+               .isEqualTo(((ByteSource) blob.getPayload().getRawContent()).read());
+      }
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE)).isEqualTo(100);
+   }
+
    @Test
    public void testGetBlobKeysInContainer() throws IOException {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -167,6 +271,394 @@ public abstract class BaseJdbcStorageStrategyTest {
         }
     }
 
+   @Test
+   public void testGetBlobWithRanges() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      byte[] content = randomByteSource().slice(0, 3 * JdbcConstants.DEFAULT_CHUNK_SIZE + 10).read();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      int offset = JdbcConstants.DEFAULT_CHUNK_SIZE - 5;
+
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME, GetOptions.Builder.range(offset, offset + 9));
+      assertThat(blob.getPayload().getContentMetadata().getContentLength()).isEqualTo(10);
+      assertThat(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()))
+            .isEqualTo(Arrays.copyOfRange(content, offset, offset + 10));
+
+      blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME, GetOptions.Builder.tail(20).range(0, 1));
+      byte[] expected = new byte[22];
+      System.arraycopy(content, content.length - 20, expected, 0, 20);
+      System.arraycopy(content, 0, expected, 20, 2);
+      assertThat(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream())).isEqualTo(expected);
+
+      blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME, GetOptions.Builder.startAt(content.length - 3));
+      assertThat(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()))
+            .isEqualTo(Arrays.copyOfRange(content, content.length - 3, content.length));
+   }
+
+   @Test
+   public void testPutBlobNonRepeatablePayload() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 3 * 1024 * 1024 + 17);
+      String etag = storageStrategy.putBlob(CONTAINER_NAME,
+            new BlobBuilderImpl().name(BLOB_NAME).payload(content.openStream()).build());
+      assertThat(etag).isEqualTo(content.hash(Hashing.md5()).toString());
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getSize()).isEqualTo(content.size());
+      assertThat(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream())).isEqualTo(content.read());
+   }
+
+   @Test
+   public void testPutBlobLargerThanWriteBatch() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 9 * 1024 * 1024 + 5);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(ByteStreams2.hashAndClose(blob.getPayload().openStream(), Hashing.md5()))
+            .isEqualTo(content.hash(Hashing.md5()));
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testPutBlobWithWrongMD5() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      Blob blob = new BlobBuilderImpl().name(BLOB_NAME).payload(randomByteSource().slice(0, 1024)).build();
+      blob.getMetadata().getContentMetadata().setContentMD5(Hashing.md5().hashBytes(new byte[0]));
+      storageStrategy.putBlob(CONTAINER_NAME, blob);
+   }
+
+   @Test
+   public void testConcurrentPutBlobSameKey() throws Exception {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      final List<ByteSource> contents = Lists.newArrayList();
+      List<String> etags = Lists.newArrayList();
+      for (int i = 0; i < WRITER_THREADS; i++) {
+         contents.add(randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE + i));
+         etags.add(contents.get(i).hash(Hashing.md5()).toString());
+      }
+
+      runConcurrently(WRITER_THREADS, new Writer() {
+         @Override
+         public void write(int thread, int iteration) throws IOException {
+            storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME)
+                  .payload(contents.get(thread)).build());
+         }
+      });
+
+      // The last writer wins, and the chunks of the other versions are all released
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(etags).contains(blob.getMetadata().getETag());
+      assertThat(ByteStreams2.hashAndClose(blob.getPayload().openStream(), Hashing.md5()).toString())
+            .isEqualTo(blob.getMetadata().getETag());
+      assertThat(jdbcService.getStorageStatistics().getChunkCount()).isEqualTo(2);
+      assertThat(jdbcService.collectGarbage()).isEqualTo(0);
+   }
+
+   @Test
+   public void testConcurrentPutBlobScaling() throws Exception {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      final ByteSource content = randomByteSource().slice(0, 64 * 1024);
+      long blobs = 0;
+      for (int threads = 1; threads <= WRITER_THREADS; threads *= 2) {
+         final String prefix = BLOB_NAME + "-" + threads + "-";
+         long millis = runConcurrently(threads, new Writer() {
+            @Override
+            public void write(int thread, int iteration) throws IOException {
+               storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(prefix + thread + "-" + iteration)
+                     .payload(content).build());
+            }
+         });
+         blobs += threads * WRITES_PER_THREAD;
+         Reporter.log(String.format("%s: %d writer(s), %.1f puts/s", jpaModuleName, threads,
+               threads * WRITES_PER_THREAD * 1000.0 / Math.max(millis, 1)), true);
+      }
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE)).isEqualTo(blobs);
+   }
+
+   private interface Writer {
+      void write(int thread, int iteration) throws IOException;
+   }
+
+   /**
+    * Runs a writer on several threads started together, and fails if any of its calls fails.
+    *
+    * @return the elapsed time in milliseconds
+    */
+   private static long runConcurrently(int threads, final Writer writer) throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      final CountDownLatch start = new CountDownLatch(1);
+      try {
+         List<Future<Void>> futures = Lists.newArrayList();
+         for (int i = 0; i < threads; i++) {
+            final int thread = i;
+            futures.add(executor.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  start.await();
+                  for (int iteration = 0; iteration < WRITES_PER_THREAD; iteration++) {
+                     writer.write(thread, iteration);
+                  }
+                  return null;
+               }
+            }));
+         }
+         long startTime = System.nanoTime();
+         start.countDown();
+         for (Future<Void> future : futures) {
+            future.get();
+         }
+         return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testDeduplication() throws IOException {
+      tearDown();
+      createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(Names.named(JdbcProperties.DEDUPLICATION)).to(true);
+         }
+      });
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource block = randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE);
+      ByteSource content = ByteSource.concat(block, block, randomByteSource().slice(0, 17));
+
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(content).build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(content).build());
+      StorageStatistics statistics = jdbcService.getStorageStatistics();
+      assertThat(statistics.getChunkCount()).isEqualTo(2);
+      assertThat(statistics.getReferencedBytes()).isEqualTo(2 * content.size());
+      assertThat(statistics.getDeduplicationRatio()).isGreaterThan(3);
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "1");
+      assertThat(jdbcService.getStorageStatistics().getChunkCount()).isEqualTo(2);
+      assertThat(ByteStreams2.toByteArrayAndClose(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2")
+            .getPayload().openStream())).isEqualTo(content.read());
+
+      // Overwriting a blob with the same content reuses its chunks
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(content).build());
+      assertThat(jdbcService.getStorageStatistics().getChunkCount()).isEqualTo(2);
+
+      storageStrategy.clearContainer(CONTAINER_NAME);
+      assertThat(jdbcService.getStorageStatistics().getChunkCount()).isEqualTo(0);
+      assertThat(jdbcService.collectGarbage()).isEqualTo(0);
+   }
+
+   @Test
+   public void testBlobCache() throws IOException {
+      tearDown();
+      createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(Names.named(JdbcProperties.BLOB_CACHE_SIZE)).to(1024 * 1024L);
+            bindConstant().annotatedWith(Names.named(JdbcProperties.BLOB_CACHE_MAX_BLOB_SIZE)).to(1024);
+         }
+      });
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 100);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+
+      // Metadata lookups and listings do not read the content
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME)).isNotNull();
+      assertThat(storageStrategy.list(CONTAINER_NAME, new ListContainerOptions().withDetails())).hasSize(1);
+      assertThat(storageStrategy.getBlobCacheStatistics().getMissCount()).isEqualTo(0);
+      assertThat(storageStrategy.getBlobCacheStatistics().getCachedBlobs()).isEqualTo(0);
+
+      for (int i = 0; i < 3; i++) {
+         assertThat(ByteStreams2.toByteArrayAndClose(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME)
+               .getPayload().openStream())).isEqualTo(content.read());
+      }
+      BlobCacheStatistics statistics = storageStrategy.getBlobCacheStatistics();
+      assertThat(statistics.getMissCount()).isEqualTo(1);
+      assertThat(statistics.getHitCount()).isEqualTo(2);
+      assertThat(statistics.getHitBytes()).isEqualTo(200);
+      assertThat(statistics.getCachedBytes()).isEqualTo(100);
+      assertThat(ByteStreams2.toByteArrayAndClose(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME,
+            new GetOptions().range(10, 19)).getPayload().openStream())).isEqualTo(content.slice(10, 10).read());
+
+      // Larger blobs are read from the database
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2")
+            .payload(randomByteSource().slice(0, 2048)).build());
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2").getPayload().getContentMetadata()
+            .getContentLength()).isEqualTo(2048);
+      assertThat(storageStrategy.getBlobCacheStatistics().getCachedBlobs()).isEqualTo(1);
+
+      ByteSource newContent = randomByteSource().slice(0, 50);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(newContent).build());
+      assertThat(ByteStreams2.toByteArrayAndClose(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME)
+            .getPayload().openStream())).isEqualTo(newContent.read());
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME)).isNull();
+      assertThat(storageStrategy.getBlobCacheStatistics().getCachedBytes()).isEqualTo(0);
+   }
+
+   @Test
+   public void testCompression() throws IOException {
+      tearDown();
+      createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(Names.named(JdbcProperties.COMPRESSION)).to("deflate");
+         }
+      });
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      byte[] text = getByteArray('a', 2 * JdbcConstants.DEFAULT_CHUNK_SIZE + 100);
+      ByteSource random = randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(text).build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(random).build());
+
+      StorageStatistics statistics = jdbcService.getStorageStatistics();
+      assertThat(statistics.getLogicalBytes()).isEqualTo(text.length + random.size());
+      // The random chunk does not compress and is stored as is
+      assertThat(statistics.getStoredBytes()).isGreaterThan(random.size()).isLessThan(random.size() + text.length / 10);
+
+      assertThat(ByteStreams2.toByteArrayAndClose(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "1")
+            .getPayload().openStream())).isEqualTo(text);
+      assertThat(ByteStreams2.toByteArrayAndClose(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2")
+            .getPayload().openStream())).isEqualTo(random.read());
+   }
+
+   @Test
+   public void testCopyBlob() throws IOException {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 2 * JdbcConstants.DEFAULT_CHUNK_SIZE + 17);
+      String etag = storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME)
+            .userMetadata(ImmutableMap.of("a", "b")).payload(content).contentType("text/plain").build());
+
+      assertThat(storageStrategy.copyBlob(CONTAINER_NAME, BLOB_NAME, CONTAINER_NAME, BLOB_NAME + "1",
+            CopyOptions.NONE)).isEqualTo(etag);
+      assertThat(storageStrategy.copyBlob(CONTAINER_NAME, BLOB_NAME, CONTAINER_NAME, BLOB_NAME + "2",
+            CopyOptions.builder().userMetadata(ImmutableMap.of("c", "d")).build())).isEqualTo(etag);
+      assertThat(jdbcService.getStorageStatistics().getChunkCount()).isEqualTo(3);
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME);
+      Blob copy = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "1");
+      assertThat(copy.getMetadata().getUserMetadata()).isEqualTo(ImmutableMap.of("a", "b"));
+      assertThat(copy.getMetadata().getContentMetadata().getContentType()).isEqualTo("text/plain");
+      assertThat(ByteStreams2.toByteArrayAndClose(copy.getPayload().openStream())).isEqualTo(content.read());
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2").getMetadata().getUserMetadata())
+            .isEqualTo(ImmutableMap.of("c", "d"));
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "1");
+      assertThat(jdbcService.getStorageStatistics().getChunkCount()).isEqualTo(3);
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "2");
+      assertThat(jdbcService.getStorageStatistics().getChunkCount()).isEqualTo(0);
+      assertThat(jdbcService.collectGarbage()).isEqualTo(0);
+   }
+
+   @Test(expectedExceptions = KeyNotFoundException.class)
+   public void testCopyMissingBlob() {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.copyBlob(CONTAINER_NAME, BLOB_NAME, CONTAINER_NAME, BLOB_NAME + "1", CopyOptions.NONE);
+   }
+
+   @Test
+   public void testMultipartUpload() throws IOException {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource part1 = randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE + 1);
+      ByteSource part2 = randomByteSource().slice(0, 17);
+      BlobMetadata metadata = new BlobBuilderImpl().name(BLOB_NAME).userMetadata(ImmutableMap.of("a", "b"))
+            .payload(new byte[0]).contentType("text/plain").build().getMetadata();
+
+      MultipartUpload mpu = storageStrategy.initiateMultipartUpload(CONTAINER_NAME, metadata, null);
+      storageStrategy.uploadMultipartPart(mpu, 2, Payloads.newByteSourcePayload(part1));
+      storageStrategy.uploadMultipartPart(mpu, 1, Payloads.newByteSourcePayload(part1));
+      storageStrategy.uploadMultipartPart(mpu, 2, Payloads.newByteSourcePayload(part2));
+      storageStrategy.uploadMultipartPart(mpu, 3, Payloads.newByteSourcePayload(part2));
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+      assertThat(storageStrategy.listMultipartUploads(CONTAINER_NAME)).hasSize(1);
+
+      List<MultipartPart> parts = storageStrategy.listMultipartUpload(mpu);
+      assertThat(parts).hasSize(3);
+      assertThat(parts.get(0).partNumber()).isEqualTo(1);
+      assertThat(parts.get(1).partSize()).isEqualTo(part2.size());
+      assertThat(parts.get(1).partETag()).isEqualTo(part2.hash(Hashing.md5()).toString());
+
+      String etag = storageStrategy.completeMultipartUpload(mpu, parts.subList(0, 2));
+      assertThat(etag).endsWith("-2");
+      assertThat(storageStrategy.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getETag()).isEqualTo(etag);
+      assertThat(blob.getMetadata().getUserMetadata()).isEqualTo(ImmutableMap.of("a", "b"));
+      assertThat(blob.getMetadata().getContentMetadata().getContentType()).isEqualTo("text/plain");
+      assertThat(blob.getMetadata().getContentMetadata().getContentLength()).isEqualTo(part1.size() + part2.size());
+      assertThat(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()))
+            .isEqualTo(ByteSource.concat(part1, part2).read());
+
+      // Parts replaced or left out of the completion are not kept
+      assertThat(jdbcService.getStorageStatistics().getChunkCount()).isEqualTo(3);
+      assertThat(jdbcService.collectGarbage()).isEqualTo(0);
+
+      MultipartUpload aborted = storageStrategy.initiateMultipartUpload(CONTAINER_NAME, metadata, null);
+      storageStrategy.uploadMultipartPart(aborted, 1, Payloads.newByteSourcePayload(part2));
+      storageStrategy.abortMultipartUpload(aborted);
+      assertThat(storageStrategy.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      assertThat(jdbcService.getStorageStatistics().getChunkCount()).isEqualTo(3);
+   }
+
+   @Test
+   public void testConcurrentCompleteAndAbortMultipartUpload() throws Exception {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource part = randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE + 1);
+      BlobMetadata metadata = new BlobBuilderImpl().name(BLOB_NAME).payload(new byte[0]).build().getMetadata();
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+         for (int i = 0; i < WRITES_PER_THREAD; i++) {
+            final MultipartUpload mpu = storageStrategy.initiateMultipartUpload(CONTAINER_NAME, metadata, null);
+            storageStrategy.uploadMultipartPart(mpu, 1, Payloads.newByteSourcePayload(part));
+            final List<MultipartPart> parts = storageStrategy.listMultipartUpload(mpu);
+            final CountDownLatch start = new CountDownLatch(1);
+            Future<String> complete = executor.submit(new Callable<String>() {
+               @Override
+               public String call() throws Exception {
+                  start.await();
+                  return storageStrategy.completeMultipartUpload(mpu, parts);
+               }
+            });
+            Future<Void> abort = executor.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  start.await();
+                  storageStrategy.abortMultipartUpload(mpu);
+                  return null;
+               }
+            });
+            start.countDown();
+            abort.get();
+            String etag = null;
+            try {
+               etag = complete.get();
+            } catch (ExecutionException e) {
+               // The upload was aborted first
+               assertThat(e.getCause()).isInstanceOfAny(IllegalArgumentException.class, IllegalStateException.class);
+            }
+
+            // Either the completion wins and publishes every chunk of the part, or the abort
+            // releases them all
+            assertThat(storageStrategy.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+            if (etag != null) {
+               Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+               assertThat(blob.getMetadata().getETag()).isEqualTo(etag);
+               assertThat(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream())).isEqualTo(part.read());
+               storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME);
+            } else {
+               assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+            }
+            assertThat(jdbcService.getStorageStatistics().getChunkCount()).isEqualTo(0);
+            assertThat(jdbcService.collectGarbage()).isEqualTo(0);
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
    @Test
    public void testRemoveBlob() throws IOException {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -177,6 +669,51 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
    }
 
+   @Test
+   public void testGetBlobKeysInsideContainerIsStreamed() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      List<Blob> blobs = Lists.newArrayList();
+      for (int i = 0; i < 2500; i++) {
+         blobs.add(new BlobBuilderImpl().name(String.format("key-%05d", i)).payload(new byte[0]).build());
+      }
+      storageStrategy.putBlobs(CONTAINER_NAME, blobs);
+
+      Iterator<String> keys = storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME).iterator();
+      assertThat(keys.next()).isEqualTo("key-00000");
+      // Pages after the first one are only read as the iteration reaches them
+      putSmallBlob("key-99999");
+      int count = 1;
+      String last = null;
+      while (keys.hasNext()) {
+         String key = keys.next();
+         assertThat(last == null || key.compareTo(last) > 0).isTrue();
+         last = key;
+         count++;
+      }
+      assertThat(count).isEqualTo(2501);
+      assertThat(last).isEqualTo("key-99999");
+   }
+
+   @Test
+   public void testRemoveBlobs() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      List<String> keys = Lists.newArrayList();
+      for (int i = 0; i < 600; i++) {
+         keys.add(BLOB_NAME + i);
+      }
+      List<Blob> blobs = Lists.newArrayList();
+      for (String key : keys.subList(0, 550)) {
+         blobs.add(new BlobBuilderImpl().name(key).payload(randomByteSource().slice(0, 100)).build());
+      }
+      storageStrategy.putBlobs(CONTAINER_NAME, blobs);
+      putSmallBlob("kept");
+
+      assertThat(storageStrategy.removeBlobs(CONTAINER_NAME, keys)).containsOnlyElementsOf(keys).hasSize(550);
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)).containsExactly("kept");
+      assertThat(injector.getInstance(JdbcService.class).getStorageStatistics().getChunkCount()).isEqualTo(1);
+      assertThat(storageStrategy.removeBlobs(CONTAINER_NAME, keys)).isEmpty();
+   }
+
    @Test
    public void testGetBlobAccess() throws IOException {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -186,6 +723,46 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.getBlobAccess(CONTAINER_NAME, BLOB_NAME)).isEqualTo(BlobAccess.PRIVATE);
    }
 
+   @Test
+   public void testGetBlobMetadata() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 2 * 1024 * 1024 + 3);
+      Blob blob = new BlobBuilderImpl().name(BLOB_NAME).userMetadata(ImmutableMap.of("k", "v"))
+            .payload(content).contentType("text/plain").build();
+      String etag = storageStrategy.putBlob(CONTAINER_NAME, blob);
+
+      BlobMetadata metadata = storageStrategy.getBlobMetadata(CONTAINER_NAME, BLOB_NAME);
+      assertThat(metadata.getContainer()).isEqualTo(CONTAINER_NAME);
+      assertThat(metadata.getETag()).isEqualTo(etag);
+      assertThat(metadata.getSize()).isEqualTo(content.size());
+      assertThat(metadata.getUserMetadata()).isEqualTo(ImmutableMap.of("k", "v"));
+      assertThat(metadata.getContentMetadata().getContentType()).isEqualTo("text/plain");
+      assertThat(storageStrategy.getBlobMetadata(CONTAINER_NAME, BLOB_NAME + "missing")).isNull();
+
+      // The payload can be read several times, the chunks are fetched on each open
+      Blob stored = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(ByteStreams2.toByteArrayAndClose(stored.getPayload().openStream())).isEqualTo(content.read());
+      assertThat(ByteStreams2.toByteArrayAndClose(stored.getPayload().openStream())).isEqualTo(content.read());
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testOpenReplacedBlobFails() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      putSmallBlob(BLOB_NAME);
+      Blob replaced = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      putSmallBlob(BLOB_NAME);
+      replaced.getPayload().openStream();
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testOpenRemovedBlobFails() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      putSmallBlob(BLOB_NAME);
+      Blob removed = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME);
+      removed.getPayload().openStream();
+   }
+
    @Test
    public void testClearContainer() throws IOException {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -203,6 +780,56 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
    }
 
+   @Test
+   public void testClearContainerInDirectory() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      putSmallBlob("dir/a");
+      putSmallBlob("dir/sub/b");
+      putSmallBlob("dirty");
+      storageStrategy.clearContainer(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir"));
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)).containsOnly("dir", "dirty");
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, "dirty").getPayload().openStream().read()).isNotEqualTo(-1);
+   }
+
+   @Test
+   public void testListWithDelimiterAndMarker() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      putSmallBlob("a");
+      putSmallBlob("b/1");
+      putSmallBlob("b/2");
+      putSmallBlob("c");
+      putSmallBlob("d/1");
+
+      PageSet<? extends StorageMetadata> page = storageStrategy.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.maxResults(2));
+      assertThat(names(page)).containsExactly("a", "b/");
+      assertThat(page.getNextMarker()).isEqualTo("b/");
+
+      page = storageStrategy.list(CONTAINER_NAME, ListContainerOptions.Builder.afterMarker(page.getNextMarker()));
+      assertThat(names(page)).containsExactly("c", "d/");
+      assertThat(page.getNextMarker()).isNull();
+
+      page = storageStrategy.list(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("b"));
+      assertThat(names(page)).containsExactly("b/1", "b/2");
+
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE)).isEqualTo(5);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("b"))).isEqualTo(2);
+   }
+
+   private static List<String> names(PageSet<? extends StorageMetadata> page) {
+      List<String> names = Lists.newArrayList();
+      for (StorageMetadata metadata : page) {
+         names.add(metadata.getName());
+      }
+      return names;
+   }
+
+   private void putSmallBlob(String key) throws IOException {
+      storageStrategy.putBlob(CONTAINER_NAME,
+            new BlobBuilderImpl().name(key).payload(randomByteSource().slice(0, 1024)).build());
+   }
+
     private byte[] getByteArray(char c, int len) {
         byte[] array = new byte[len];
         Arrays.fill(array, (byte) c);